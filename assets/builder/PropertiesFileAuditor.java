@@ -1,6 +1,5 @@
 package org.art_core.dev.cinder.builder;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -9,7 +8,6 @@ import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -24,8 +22,10 @@ import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
 
 import org.art_core.dev.cinder.CinderLog;
 import org.art_core.dev.cinder.CinderPlugin;
@@ -67,8 +67,18 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 		String key;
 		int charStart;
 		int charEnd;
+		// the problem reported for this key, if any
+		IMarker marker;
 	}
 
+	private static final String PLUGIN_FILE = "HelloWorldOutput.java";
+	private static final String PROPERTIES_FILE = "HelloWorldASD.java";
+	private static final int BUFFER_SIZE = 8192;
+
+	/** the keys of the last audit, null until a full audit has completed */
+	private Map<String, Location> pluginKeys;
+	private Map<String, Location> propertyKeys;
+
 	/**
 	 * When called by Eclipse, this builder should perform an audit as
 	 * necessary. If the build kind is <code>INCREMENTAL_BUILD</code> or
@@ -77,6 +87,11 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 	 * changes have occurred since the last invocation of this method. After
 	 * completing a build, this builder may return a list of projects for which
 	 * it requires a resource delta the next time it is run.
+	 * <p>
+	 * A full build, or a build without a delta or previous state, audits both
+	 * files. Otherwise only the files in the delta are scanned again and their
+	 * keys are diffed against the last audit, so only the markers of keys that
+	 * appeared, disappeared or moved are touched.
 	 * 
 	 * @param kind
 	 *            the kind of build being requested. Valid values are
@@ -105,13 +120,22 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 	protected IProject[] build(final int kind, final Map args,
 			final IProgressMonitor monitor) throws CoreException {
 
-		if (shouldAudit(kind)) {
+		final IResourceDelta delta = (kind == FULL_BUILD) ? null
+				: getDelta(getProject());
+		if (delta == null || pluginKeys == null || propertyKeys == null) {
 			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
 				public void run(final IProgressMonitor monitor)
 						throws CoreException {
 					auditPluginManifest(monitor);
 				}
 			}, monitor);
+		} else if (shouldAudit(delta)) {
+			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+				public void run(final IProgressMonitor monitor)
+						throws CoreException {
+					auditDelta(delta, monitor);
+				}
+			}, monitor);
 		}
 		return new IProject[0];
 	}
@@ -125,43 +149,39 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 	 * the builder. The platform will take care of discarding the builder's last
 	 * built state (there is no need to call <code>forgetLastBuiltState</code>).
 	 * 
-	 * In our case, we already scrub the project as part of the FULL_BUILD so no
-	 * additional work needed.
+	 * In our case, the keys of the last audit are dropped along with the
+	 * markers, so the next build audits both files again.
 	 */
 	protected void clean(final IProgressMonitor monitor) throws CoreException {
-		// no additional work needed here
+		pluginKeys = null;
+		propertyKeys = null;
+		deleteAuditMarkers(getProject());
 	}
 
 	/**
-	 * Determines whether files should be audited by checking for FULL_BUILD, or
-	 * if the plugin.xml or plugin.properties files of the project have changed.
+	 * Determines whether files should be audited by checking if the contents
+	 * of the plugin.xml or plugin.properties files of the project have
+	 * changed. Changes of their markers alone, e.g. by the last audit, are
+	 * ignored.
 	 * 
-	 * @param kind
-	 *            the kind of build
+	 * @param delta
+	 *            the changes since the last build, not <code>null</code>
 	 * @return <code>true</code> if files should be audited, else
 	 *         <code>false</code>.
 	 */
+	private boolean shouldAudit(final IResourceDelta delta) {
+		return isContentChange(delta.findMember(new Path(PLUGIN_FILE)))
+				|| isContentChange(delta.findMember(new Path(PROPERTIES_FILE)));
+	}
 
-	private boolean shouldAudit(final int kind) {
-		boolean bResult = false;
-		if (kind == FULL_BUILD) {
-			bResult = true;
-		}
-		final IResourceDelta delta = getDelta(getProject());
+	private static boolean isContentChange(final IResourceDelta delta) {
 		if (delta == null) {
-			bResult = false;
-		}
-		final IResourceDelta[] children = delta.getAffectedChildren();
-		for (int i = 0; i < children.length; i++) {
-			final IResourceDelta child = children[i];
-			final String sFileName = child.getProjectRelativePath()
-					.lastSegment();
-			if ("HelloWorldOutput.java".equals(sFileName)
-					|| "HelloWorldASD.java".equals(sFileName)) {
-				bResult = true;
-			}
+			return false;
+		}
+		if (delta.getKind() != IResourceDelta.CHANGED) {
+			return true;
 		}
-		return bResult;
+		return (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0;
 	}
 
 	/**
@@ -179,6 +199,8 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 	 */
 	private void auditPluginManifest(final IProgressMonitor monitor) {
 		monitor.beginTask("Audit plugin manifest", 4);
+		pluginKeys = null;
+		propertyKeys = null;
 
 		if (!deleteAuditMarkers(getProject())) {
 			return;
@@ -187,27 +209,23 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 		if (checkCancel(monitor)) {
 			return;
 		}
-		final Map<String, Location> pluginKeys = scanPlugin(getProject()
-				.getFile("HelloWorldOutput.java"));
+		final Map<String, Location> newPluginKeys = scanPlugin(getProject()
+				.getFile(PLUGIN_FILE));
 		monitor.worked(1);
 
 		if (checkCancel(monitor)) {
 			return;
 		}
-		final Map<String, Location> propertyKeys = scanProperties(getProject()
-				.getFile("HelloWorldASD.java"));
+		final Map<String, Location> newPropertyKeys = scanProperties(getProject()
+				.getFile(PROPERTIES_FILE));
 		monitor.worked(1);
 
 		if (checkCancel(monitor)) {
 			return;
 		}
-		Iterator<Map.Entry<String, Location>> iter = pluginKeys.entrySet()
-				.iterator();
-		while (iter.hasNext()) {
-			final Map.Entry<String, Location> entry = iter.next();
-			if (!propertyKeys.containsKey(entry.getKey())) {
-				reportProblem("Missing property key", ((Location) entry
-						.getValue()), MISSING_KEY_VIOLATION, true);
+		for (Location loc : newPluginKeys.values()) {
+			if (!newPropertyKeys.containsKey(loc.key)) {
+				reportViolation(loc, true);
 			}
 		}
 		monitor.worked(1);
@@ -215,21 +233,108 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 		if (checkCancel(monitor)) {
 			return;
 		}
-		iter = propertyKeys.entrySet().iterator();
-		while (iter.hasNext()) {
-			final Map.Entry<String, Location> entry = iter.next();
-			if (!pluginKeys.containsKey(entry.getKey())) {
-				reportProblem("Unused property key", ((Location) entry
-						.getValue()), UNUSED_KEY_VIOLATION, false);
+		for (Location loc : newPropertyKeys.values()) {
+			if (!newPluginKeys.containsKey(loc.key)) {
+				reportViolation(loc, false);
+			}
+		}
+		pluginKeys = newPluginKeys;
+		propertyKeys = newPropertyKeys;
+		monitor.done();
+	}
+
+	/**
+	 * Scan the files named in the delta again and update the markers of the
+	 * keys that changed since the last audit.
+	 * 
+	 * @param delta
+	 *            the changes since the last build
+	 * @param monitor
+	 *            the progress monitor
+	 */
+	private void auditDelta(final IResourceDelta delta,
+			final IProgressMonitor monitor) {
+		monitor.beginTask("Audit plugin manifest", 2);
+
+		final IResourceDelta pluginDelta = delta.findMember(new Path(PLUGIN_FILE));
+		if (isContentChange(pluginDelta)) {
+			if (checkCancel(monitor)) {
+				return;
+			}
+			final Map<String, Location> newKeys = (pluginDelta.getKind() == IResourceDelta.REMOVED)
+					? new HashMap<String, Location>()
+					: scanPlugin(getProject().getFile(PLUGIN_FILE));
+			updateMarkers(pluginKeys, newKeys, propertyKeys, true);
+			pluginKeys = newKeys;
+		}
+		monitor.worked(1);
+
+		final IResourceDelta propertiesDelta = delta.findMember(new Path(PROPERTIES_FILE));
+		if (isContentChange(propertiesDelta)) {
+			if (checkCancel(monitor)) {
+				return;
 			}
+			final Map<String, Location> newKeys = (propertiesDelta.getKind() == IResourceDelta.REMOVED)
+					? new HashMap<String, Location>()
+					: scanProperties(getProject().getFile(PROPERTIES_FILE));
+			updateMarkers(propertyKeys, newKeys, pluginKeys, false);
+			propertyKeys = newKeys;
 		}
 		monitor.done();
 	}
 
+	/**
+	 * Diff the keys of a rescanned file against its keys of the last audit.
+	 * Keys that stayed keep their marker, moved to the new position if
+	 * necessary; keys that left or appeared update their own marker and the
+	 * marker of the same key in the other file.
+	 * 
+	 * @param oldKeys
+	 *            the keys of the file at the last audit
+	 * @param newKeys
+	 *            the keys just scanned, they take over the markers
+	 * @param otherKeys
+	 *            the keys of the other file
+	 * @param bPlugin
+	 *            whether the rescanned file is the plugin.xml
+	 */
+	private void updateMarkers(final Map<String, Location> oldKeys,
+			final Map<String, Location> newKeys,
+			final Map<String, Location> otherKeys, final boolean bPlugin) {
+		for (Location old : oldKeys.values()) {
+			if (newKeys.containsKey(old.key)) {
+				continue;
+			}
+			deleteMarker(old);
+			final Location other = otherKeys.get(old.key);
+			if (other != null) {
+				reportViolation(other, !bPlugin);
+			}
+		}
+		for (Location loc : newKeys.values()) {
+			final Location old = oldKeys.get(loc.key);
+			if (old != null) {
+				loc.marker = old.marker;
+				if (loc.charStart != old.charStart || loc.charEnd != old.charEnd) {
+					moveMarker(loc);
+				}
+				continue;
+			}
+			final Location other = otherKeys.get(loc.key);
+			if (other == null) {
+				reportViolation(loc, bPlugin);
+			} else {
+				deleteMarker(other);
+			}
+		}
+	}
+
 	/**
 	 * Check to see if the build operation in progress was canceled by the user
 	 * or should be canceled because another builder needs access to the
-	 * workspace.
+	 * workspace. Either way, the keys of the last audit may no longer match
+	 * the markers, so the state is discarded and the next build is a full
+	 * audit.
 	 * 
 	 * @param monitor
 	 *            the progress monitor
@@ -238,17 +343,23 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 	private boolean checkCancel(final IProgressMonitor monitor) {
 		boolean bCheck = false;
 		if (monitor.isCanceled()) {
-			// Discard build state if necessary.
+			discardState();
 			throw new OperationCanceledException();
 		}
 
 		if (isInterrupted()) {
-			// Discard build state if necessary.
+			discardState();
 			bCheck = true;
 		}
 		return bCheck;
 	}
 
+	private void discardState() {
+		pluginKeys = null;
+		propertyKeys = null;
+		forgetLastBuiltState();
+	}
+
 	/**
 	 * Scan the specified plugin.xml file and build a mapping of keys to
 	 * location of those keys in the file.
@@ -259,7 +370,7 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 	 */
 	private Map<String, Location> scanPlugin(final IFile file) {
 		final Map<String, Location> keys = new HashMap<String, Location>();
-		String content = readFile(file);
+		final String content = readFile(file);
 		int start = 0;
 		Location loc;
 		while (true) {
@@ -284,7 +395,8 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 
 	/**
 	 * Scan the specified plugin.properties file and build a mapping of keys to
-	 * location of those keys in the file.
+	 * location of those keys in the file. The file is read line by line; the
+	 * key of a line is the text before its first '='.
 	 * 
 	 * @param file
 	 *            the plugin.properties file to be scanned
@@ -293,36 +405,36 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 	private Map<String, Location> scanProperties(final IFile file) {
 		final Map<String, Location> keys = new HashMap<String, Location>();
 		final String content = readFile(file);
-		int end = 0;
+		final int iLength = content.length();
+		int start = 0;
 		Location loc;
 		String found;
-		while (true) {
-			end = content.indexOf('=', end);
-			if (end < 0) {
-				break;
-			}
-			int start = end - 1;
+		while (start < iLength) {
+			int end = start;
+			int assign = -1;
 			char cXX;
-			while (start >= 0) {
-				cXX = content.charAt(start);
+			while (end < iLength) {
+				cXX = content.charAt(end);
 				if (cXX == '\r' || cXX == '\n') {
 					break;
 				}
-				start--;
+				if (cXX == '=' && assign < 0) {
+					assign = end;
+				}
+				end++;
 			}
-			start++;
-			found = content.substring(start, end).trim();
-			if (found.length() == 0 || found.charAt(0) == '#'
-					|| found.indexOf('=') != -1) {
-				continue;
+			if (assign >= 0) {
+				found = content.substring(start, assign).trim();
+				if (found.length() > 0 && found.charAt(0) != '#') {
+					loc = new Location();
+					loc.file = file;
+					loc.key = found;
+					loc.charStart = start;
+					loc.charEnd = assign;
+					keys.put(loc.key, loc);
+				}
 			}
-			loc = new Location();
-			loc.file = file;
-			loc.key = found;
-			loc.charStart = start;
-			loc.charEnd = end;
-			keys.put(loc.key, loc);
-			end++;
+			start = end + 1;
 		}
 		return keys;
 	}
@@ -342,10 +454,9 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 				throw new FileNotFoundException(file.toString());
 			}
 			stream = file.getContents();
-			final Reader reader = new BufferedReader(new InputStreamReader(
-					stream));
-			final StringBuffer result = new StringBuffer(2048);
-			final char[] buf = new char[2048];
+			final Reader reader = new InputStreamReader(stream, file.getCharset());
+			final StringBuilder result = new StringBuilder(getLength(file));
+			final char[] buf = new char[BUFFER_SIZE];
 			int iCount;
 			while (true) {
 				iCount = reader.read(buf);
@@ -355,11 +466,7 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 				result.append(buf, 0, iCount);
 			}
 			sResult = result.toString();
-			if (stream != null) {
-				stream.close();
-			}
 		} catch (FileNotFoundException e) {
-			// TODO Auto-generated catch block
 			CinderLog.logError(e);
 			sResult = "";
 		} catch (IOException e) {
@@ -368,11 +475,46 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 		} catch (Exception e) {
 			CinderLog.logError(e);
 			sResult = "";
+		} finally {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException e) {
+					CinderLog.logErrorInfo("PFA:close", e);
+				}
+			}
 		}
 
 		return sResult;
 	}
 
+	/**
+	 * Returns the size of a file in bytes, which is at least its length in
+	 * chars for the usual encodings.
+	 */
+	private static int getLength(final IFile file) {
+		final IPath location = file.getLocation();
+		if (location != null) {
+			final long lLength = location.toFile().length();
+			if (lLength > 0 && lLength < Integer.MAX_VALUE) {
+				return (int) lLength;
+			}
+		}
+		return BUFFER_SIZE;
+	}
+
+	/**
+	 * Report the violation of a key: missing in plugin.properties if it is a
+	 * key of plugin.xml, unused otherwise.
+	 */
+	private void reportViolation(final Location loc, final boolean bPlugin) {
+		if (bPlugin) {
+			reportProblem("Missing property key", loc, MISSING_KEY_VIOLATION, true);
+		} else {
+			reportProblem("Unused property key", loc, UNUSED_KEY_VIOLATION, false);
+		}
+	}
+
 	/**
 	 * Report the specified problem to the user.
 	 */
@@ -389,14 +531,47 @@ public class PropertiesFileAuditor extends IncrementalProjectBuilder {
 									: IMarker.SEVERITY_WARNING);
 			marker.setAttribute(KEY, loc.key);
 			marker.setAttribute(VIOLATION, violation);
+			loc.marker = marker;
+
+			if (CinderLog.isDebug()) {
+				CinderLog.logDebug("rP: " + marker.toString());
+			}
+		} catch (CoreException e) {
+			CinderLog.logError(e);
+			return;
+		}
+	}
 
-			CinderLog.logInfo("rP: " + marker.toString());
-			CinderLog.logInfo("rP: "
-					+ marker.getAttribute(IMarker.SEVERITY, 666));
+	/**
+	 * Move the marker of a key to its new position in the file.
+	 */
+	private void moveMarker(final Location loc) {
+		if (loc.marker == null) {
+			return;
+		}
+		try {
+			loc.marker.setAttributes(new String[] { IMarker.CHAR_START, IMarker.CHAR_END },
+					new Object[] { Integer.valueOf(loc.charStart), Integer.valueOf(loc.charEnd) });
 		} catch (CoreException e) {
 			CinderLog.logError(e);
+		}
+	}
+
+	/**
+	 * Delete the marker of a key, if it has one.
+	 */
+	private void deleteMarker(final Location loc) {
+		if (loc.marker == null) {
 			return;
 		}
+		try {
+			if (loc.marker.exists()) {
+				loc.marker.delete();
+			}
+		} catch (CoreException e) {
+			CinderLog.logError(e);
+		}
+		loc.marker = null;
 	}
 
 	// //////////////////////////////////////////////////////////////////////////
@@ -21,13 +21,21 @@ public final class CinderLog {
 	 * @param message
 	 */
 	public static void logDebug(final String message) {
-		IPreferenceStore ipsPref = CinderPlugin.getDefault().getPreferenceStore();
-		String sPrefKey = CinderPrefPage.P_BOOLEAN + "_show_debug";
-		boolean bDebug = ipsPref.getBoolean(sPrefKey);
-		if (bDebug) {
+		if (isDebug()) {
 			logInfo(message);
 		}
 	}
+
+	/**
+	 * Whether debug messages are logged. Callers in tight loops should
+	 * check this before building the message.
+	 * @return
+	 */
+	public static boolean isDebug() {
+		IPreferenceStore ipsPref = CinderPlugin.getDefault().getPreferenceStore();
+		String sPrefKey = CinderPrefPage.P_BOOLEAN + "_show_debug";
+		return ipsPref.getBoolean(sPrefKey);
+	}
 	
 	/**
 	 * Logs a non-critical exception as information.
@@ -1,5 +1,11 @@
 package org.art_core.dev.cinder;
 
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.art_core.dev.cinder.controller.Metrics;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
@@ -22,6 +28,7 @@ public class CinderPlugin extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		registerMetrics(true);
 	}
 
 	/*
@@ -29,10 +36,29 @@ public class CinderPlugin extends AbstractUIPlugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		registerMetrics(false);
 		plugin = null;
 		super.stop(context);
 	}
 
+	/**
+	 * Publishes the ingestion metrics through JMX.
+	 * @param bRegister whether to register or unregister
+	 */
+	private void registerMetrics(final boolean bRegister) {
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+			if (bRegister && !server.isRegistered(name)) {
+				server.registerMBean(Metrics.getMetrics(), name);
+			} else if (!bRegister && server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (Exception e) {
+			CinderLog.logErrorInfo("JMX", e);
+		}
+	}
+
 	/**
 	 * Returns the shared instance
 	 *
@@ -48,12 +48,110 @@ public class CinderResource extends ListResourceBundle {
 		{ "XML_URL",
 			"URL to XML"
 		},
+		{ "TIMEOUT_IN_SECONDS",
+			"Timeout in seconds (0 for none):"
+		},
+		{ "JOB_INGEST",
+			"Reading {0}"
+		},
+		{ "JOB_HISTORY",
+			"Recording the findings of build {0}"
+		},
+		{ "PARSERS",
+			"Parsers (comma separated, empty for all):"
+		},
+		{ "MARKER_MODE",
+			"Create markers for"
+		},
+		{ "MARKER_MODE_EAGER",
+			"All files with findings"
+		},
+		{ "MARKER_MODE_LAZY",
+			"Files open in an editor only"
+		},
+		{ "MARKER_MODE_ANNOTATIONS",
+			"Editor annotations only (not saved)"
+		},
+		{ "STREAMING",
+			"Show findings while a report is parsed"
+		},
+		{ "PATH_MAPPINGS",
+			"Path mappings (ci/prefix=project/folder;...)"
+		},
+		{ "SUPPRESSIONS_FILE",
+			"Suppression rules (source|rule|path glob|message regex)"
+		},
+		{ "PUSH_ENABLED",
+			"Listen for new report notifications on localhost"
+		},
+		{ "PUSH_PORT",
+			"Notification port (http://localhost:port/notify)"
+		},
+		{ "PUSH_TOKEN",
+			"Notification token (required, sent as X-Cinder-Token)"
+		},
+		{ "MAX_ITEMS",
+			"Maximum number of findings (0 for no limit):"
+		},
+		{ "MAX_MEMORY",
+			"Maximum memory for findings in MB (0 for no limit):"
+		},
+		{ "HIDDEN_SUMMARY",
+			"{0} more findings hidden to stay within the memory budget."
+		},
+		{ "HIDDEN_SHOW_MORE",
+			"<a>Show {0} more</a>"
+		},
 		{ "CHECK_PERIODICALLY",
 			"Check periodically"
 		},
 		{ "INTERVAL_IN_MINUTES",
 			"Interval in minutes:"
 		},
+		{ "FILTER_ALL",
+			"All"
+		},
+		{ "FILTER_SOURCE",
+			"Source:"
+		},
+		{ "FILTER_TYPE",
+			"Type:"
+		},
+		{ "FILTER_STATUS",
+			"Status:"
+		},
+		{ "FILTER_LOCATION",
+			"Location:"
+		},
+		{ "FILTER_TEXT",
+			"Search:"
+		},
+		{ "TEXT_REFRESH",
+			"Refresh"
+		},
+		{ "IMAGE_REFRESH",
+			PlatformUI.getWorkbench()
+			.getSharedImages().getImageDescriptor(ISharedImages.IMG_TOOL_REDO)
+		},
+		{ "TEXT_RESET_STATISTICS",
+			"Reset Statistics"
+		},
+		{ "STATISTICS_STAGE_COLUMNS",
+			new String[] { "Source", "Stage", "Count", "Mean ms", "p50 ms", "p95 ms", "Max ms" }
+		},
+		{ "STATISTICS_VOLUME_COLUMNS",
+			new String[] { "Source", "Bytes", "Findings", "Findings/s", "Est. heap bytes" }
+		},
+		{ "STATISTICS_COUNTERS",
+			"Resource cache hit rate: {0}%   Markers created: {1}   Markers deleted: {2}"
+		},
+		{ "TEXT_GROUP_BY_FILE",
+			"Group by File"
+		},
+		{ "IMAGE_GROUP_BY_FILE",
+			PlatformUI.getWorkbench()
+			.getSharedImages().getImageDescriptor(ISharedImages.IMG_OBJ_FOLDER)
+		},
 		{ "TEXT_HIDE_ALL_MARKERS",
 			"Hide all Markers"
 		},
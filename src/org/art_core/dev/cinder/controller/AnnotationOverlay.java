@@ -0,0 +1,159 @@
+package org.art_core.dev.cinder.controller;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.art_core.dev.cinder.CinderLog;
+import org.art_core.dev.cinder.CinderPlugin;
+import org.art_core.dev.cinder.model.IItem;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationModelExtension;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.part.FileEditorInput;
+import org.eclipse.ui.texteditor.IDocumentProvider;
+import org.eclipse.ui.texteditor.ITextEditor;
+
+/**
+ * Shows findings as transient annotations in the annotation model of
+ * open editors. Unlike markers, nothing is written to the workspace
+ * metadata; the annotations are gone once the editor is closed.
+ * @author Florian Anderiasch
+ *
+ */
+public class AnnotationOverlay {
+	public static final String TYPE_ERROR = CinderPlugin.PLUGIN_ID + ".annotation.error";
+	public static final String TYPE_WARNING = CinderPlugin.PLUGIN_ID + ".annotation.warning";
+	public static final String TYPE_INFO = CinderPlugin.PLUGIN_ID + ".annotation.info";
+
+	private final IWorkbenchPage page;
+	private final Map<IFile, Annotation[]> attached = new HashMap<IFile, Annotation[]>();
+
+	public AnnotationOverlay(final IWorkbenchPage page) {
+		this.page = page;
+	}
+
+	/**
+	 * Replaces the annotations of a file with the given items. Does nothing
+	 * if the file is not open in a text editor.
+	 * @param res the file
+	 * @param items the findings of the file
+	 */
+	public void attach(final IFile res, final Collection<IItem> items) {
+		final ITextEditor editor = findEditor(res);
+		if (editor == null) {
+			return;
+		}
+		final IEditorInput input = editor.getEditorInput();
+		final IDocumentProvider provider = editor.getDocumentProvider();
+		final IAnnotationModel model = provider.getAnnotationModel(input);
+		final IDocument doc = provider.getDocument(input);
+		if (model == null || doc == null) {
+			return;
+		}
+
+		final Map<Annotation, Position> added = new HashMap<Annotation, Position>();
+		for (IItem pItem : items) {
+			try {
+				final int[] iOffset = DocumentNavigator.getLineSelection(doc, pItem.getOffset(), pItem.getLine());
+				final Annotation annotation = new Annotation(getAnnotationType(pItem), false,
+						pItem.getName() + "(" + pItem.getMessage() + "): " + pItem.getLine());
+				added.put(annotation, new Position(iOffset[0], Math.max(iOffset[1], 0)));
+			} catch (BadLocationException e) {
+				// finding is outside of the current document, skip it
+			}
+		}
+
+		final Annotation[] removed = attached.remove(res);
+		replace(model, removed, added);
+		attached.put(res, added.keySet().toArray(new Annotation[added.size()]));
+	}
+
+	/**
+	 * Removes the annotations of a file.
+	 * @param res the file
+	 */
+	public void detach(final IFile res) {
+		final Annotation[] removed = attached.remove(res);
+		if (removed == null) {
+			return;
+		}
+		final ITextEditor editor = findEditor(res);
+		if (editor == null) {
+			// the model went away together with the editor
+			return;
+		}
+		final IAnnotationModel model = editor.getDocumentProvider().getAnnotationModel(editor.getEditorInput());
+		if (model != null) {
+			replace(model, removed, new HashMap<Annotation, Position>());
+		}
+	}
+
+	/**
+	 * Removes the annotations of all files.
+	 */
+	public void detachAll() {
+		for (IFile res : attached.keySet().toArray(new IFile[attached.size()])) {
+			detach(res);
+		}
+	}
+
+	/**
+	 * Swaps annotations in one model change where the model supports it.
+	 */
+	private void replace(final IAnnotationModel model, final Annotation[] removed,
+			final Map<Annotation, Position> added) {
+		if (model instanceof IAnnotationModelExtension) {
+			((IAnnotationModelExtension) model).replaceAnnotations(removed, added);
+			return;
+		}
+		if (removed != null) {
+			for (Annotation annotation : removed) {
+				model.removeAnnotation(annotation);
+			}
+		}
+		for (Map.Entry<Annotation, Position> entry : added.entrySet()) {
+			model.addAnnotation(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Finds the open text editor of a file.
+	 * @param res the file
+	 * @return the editor or <code>null</code>
+	 */
+	private ITextEditor findEditor(final IFile res) {
+		try {
+			final IEditorPart part = page.findEditor(new FileEditorInput(res));
+			if (part instanceof ITextEditor) {
+				return (ITextEditor) part;
+			}
+		} catch (Exception e) {
+			CinderLog.logErrorInfo("AO_findEditor", e);
+		}
+		return null;
+	}
+
+	/**
+	 * Maps the item type to one of the annotation types.
+	 * @param pItem
+	 * @return the annotation type
+	 */
+	private String getAnnotationType(final IItem pItem) {
+		switch (pItem.getType().getPostion()) {
+		case 13:
+			return TYPE_ERROR;
+		case 12:
+			return TYPE_WARNING;
+		default:
+			return TYPE_INFO;
+		}
+	}
+}
@@ -1,39 +1,33 @@
 package org.art_core.dev.cinder.controller;
 
-import java.util.ResourceBundle;
-import java.util.TimerTask;
 import org.art_core.dev.cinder.CinderLog;
-import org.eclipse.swt.widgets.Display;
 
-public class CheckFilesTask extends TimerTask {
+/**
+ * Periodic check of one report source. The check runs as an IngestJob,
+ * so it shows progress and can be canceled; the worker waits for it,
+ * so a source is never checked twice at the same time.
+ */
+public class CheckFilesTask implements Runnable {
 	private MainController parent;
-	private String sFilename;
-	private int iFileLocation;
+	private ReportSource source;
 
-	public CheckFilesTask(MainController mc, String sFile, int iFileLocation) {
+	public CheckFilesTask(MainController mc, ReportSource src) {
 		this.parent = mc;
-		this.sFilename = sFile;
-		this.iFileLocation = iFileLocation;
-		
+		this.source = src;
 	}
 	
 	@Override
 	public void run() {
-		CinderLog.logDebug("running CheckFilesTask on " + sFilename);
-		
-		Display display = Display.getCurrent();
-		if (display == null) {
-			display = Display.getDefault();
+		CinderLog.logDebug("running CheckFilesTask on " + source);
+		final IngestJob job = new IngestJob(parent, source, parent.isStreaming());
+		job.schedule();
+		try {
+			job.join();
+		} catch (InterruptedException e) {
+			// the scheduler is shutting down
+			job.cancel();
+			Thread.currentThread().interrupt();
 		}
-			
-		display.asyncExec(new Runnable() {
-			@Override
-			public void run() {
-				parent.insertFromFile(sFilename, iFileLocation);
-				parent.hideMarkersAll();
-				parent.showMarkersAll();
-			}
-		});		
 	}
 
 }
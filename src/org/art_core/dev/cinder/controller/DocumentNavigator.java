@@ -0,0 +1,126 @@
+package org.art_core.dev.cinder.controller;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+
+/**
+ * Converts line numbers of findings to selections in an open document.
+ * The line start table of every document is computed once and kept until
+ * the document changes, so jumping through many findings in the same
+ * file does not rescan it.
+ * @author Florian Anderiasch
+ *
+ */
+public final class DocumentNavigator {
+	private static final Map<IDocument, int[]> LINE_STARTS = new WeakHashMap<IDocument, int[]>();
+
+	private static final IDocumentListener INVALIDATOR = new IDocumentListener() {
+		@Override
+		public void documentAboutToBeChanged(final DocumentEvent event) {
+		}
+
+		@Override
+		public void documentChanged(final DocumentEvent event) {
+			final IDocument doc = event.getDocument();
+			synchronized (LINE_STARTS) {
+				LINE_STARTS.remove(doc);
+			}
+			doc.removeDocumentListener(this);
+		}
+	};
+
+	private DocumentNavigator() {}
+
+	/**
+	 * Computes the selection for a finding, skipping the leading whitespace
+	 * of the line and the line break at its end.
+	 *
+	 * @param doc the document
+	 * @param iOff the offset of the finding relative to the line start
+	 * @param iLine the line number, starting at 1
+	 * @return the offset and the length of the selection
+	 * @throws BadLocationException if the line does not exist
+	 */
+	public static int[] getLineSelection(final IDocument doc, final int iOff, final int iLine)
+			throws BadLocationException {
+		final int[] starts = getLineStarts(doc);
+		final int iIndex = iLine - 1;
+		if (iIndex < 0 || iIndex >= starts.length) {
+			throw new BadLocationException("line " + iLine);
+		}
+
+		final int iLineOffset = starts[iIndex];
+		final int iLineEnd = (iIndex + 1 < starts.length) ? starts[iIndex + 1] : doc.getLength();
+		final int iLineLength = iLineEnd - iLineOffset;
+
+		// optional stripping of leading whitespace, on a single copy of the line
+		final String sLine = doc.get(iLineOffset, iLineLength);
+		int iCounter = 0;
+		while (iCounter < iLineLength) {
+			final char c = sLine.charAt(iCounter);
+			if (c != ' ' && c != '\t') {
+				break;
+			}
+			iCounter++;
+		}
+
+		final int[] ret = new int[2];
+		ret[0] = iLineOffset + iOff + iCounter;
+		// avoid to select the line break at the end
+		ret[1] = iLineLength - iCounter - 1;
+		return ret;
+	}
+
+	/**
+	 * Returns the cached line start table of a document, building it if needed.
+	 *
+	 * @param doc the document
+	 * @return the offsets at which each line starts
+	 */
+	private static int[] getLineStarts(final IDocument doc) {
+		synchronized (LINE_STARTS) {
+			int[] starts = LINE_STARTS.get(doc);
+			if (starts == null) {
+				starts = computeLineStarts(doc.get());
+				LINE_STARTS.put(doc, starts);
+				doc.addDocumentListener(INVALIDATOR);
+			}
+			return starts;
+		}
+	}
+
+	/**
+	 * Scans the text once for \n, \r\n and \r line delimiters.
+	 *
+	 * @param sText the document content
+	 * @return the offsets at which each line starts
+	 */
+	static int[] computeLineStarts(final CharSequence sText) {
+		final int iLen = sText.length();
+		int[] starts = new int[64];
+		int iCount = 1;
+		starts[0] = 0;
+		for (int i = 0; i < iLen; i++) {
+			final char c = sText.charAt(i);
+			if (c == '\r' && i + 1 < iLen && sText.charAt(i + 1) == '\n') {
+				i++;
+			} else if (c != '\r' && c != '\n') {
+				continue;
+			}
+			if (iCount == starts.length) {
+				final int[] grown = new int[starts.length * 2];
+				System.arraycopy(starts, 0, grown, 0, iCount);
+				starts = grown;
+			}
+			starts[iCount++] = i + 1;
+		}
+		final int[] ret = new int[iCount];
+		System.arraycopy(starts, 0, ret, 0, iCount);
+		return ret;
+	}
+}
@@ -0,0 +1,135 @@
+package org.art_core.dev.cinder.controller;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.art_core.dev.cinder.CinderLog;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IFileEditorInput;
+import org.eclipse.ui.IPartListener2;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchPartReference;
+import org.eclipse.ui.PartInitException;
+
+/**
+ * Follows the editors of a workbench page and tells the controller
+ * which files are currently looked at, so findings only need to be
+ * materialized for those files.
+ * @author Florian Anderiasch
+ *
+ */
+public class EditorTracker implements IPartListener2 {
+	private final MainController parent;
+	private final IWorkbenchPage page;
+	private final Set<IFile> openFiles = new HashSet<IFile>();
+
+	public EditorTracker(final MainController mc, final IWorkbenchPage page) {
+		this.parent = mc;
+		this.page = page;
+		for (IEditorReference ref : page.getEditorReferences()) {
+			final IFile res = getFile(ref);
+			if (res != null) {
+				openFiles.add(res);
+			}
+		}
+		page.addPartListener(this);
+	}
+
+	/**
+	 * Stops listening to the page.
+	 */
+	public void dispose() {
+		page.removePartListener(this);
+		openFiles.clear();
+	}
+
+	/**
+	 * Returns the files open in an editor.
+	 * @return
+	 */
+	public Collection<IFile> getOpenFiles() {
+		return new HashSet<IFile>(openFiles);
+	}
+
+	@Override
+	public void partOpened(final IWorkbenchPartReference partRef) {
+		final IFile res = getFile(partRef);
+		if (res != null && openFiles.add(res)) {
+			parent.editorOpened(res);
+		}
+	}
+
+	@Override
+	public void partClosed(final IWorkbenchPartReference partRef) {
+		final IFile res = getFile(partRef);
+		if (res != null && openFiles.remove(res)) {
+			parent.editorClosed(res);
+		}
+	}
+
+	@Override
+	public void partInputChanged(final IWorkbenchPartReference partRef) {
+		// the old input is unknown, so resync the whole page
+		final Set<IFile> current = new HashSet<IFile>();
+		for (IEditorReference ref : page.getEditorReferences()) {
+			final IFile res = getFile(ref);
+			if (res != null) {
+				current.add(res);
+			}
+		}
+		for (IFile res : new HashSet<IFile>(openFiles)) {
+			if (!current.contains(res)) {
+				openFiles.remove(res);
+				parent.editorClosed(res);
+			}
+		}
+		for (IFile res : current) {
+			if (openFiles.add(res)) {
+				parent.editorOpened(res);
+			}
+		}
+	}
+
+	@Override
+	public void partActivated(final IWorkbenchPartReference partRef) {
+	}
+
+	@Override
+	public void partBroughtToTop(final IWorkbenchPartReference partRef) {
+	}
+
+	@Override
+	public void partDeactivated(final IWorkbenchPartReference partRef) {
+	}
+
+	@Override
+	public void partHidden(final IWorkbenchPartReference partRef) {
+	}
+
+	@Override
+	public void partVisible(final IWorkbenchPartReference partRef) {
+	}
+
+	/**
+	 * Returns the workspace file edited by a part, if any.
+	 * @param partRef
+	 * @return the file or <code>null</code>
+	 */
+	private IFile getFile(final IWorkbenchPartReference partRef) {
+		if (!(partRef instanceof IEditorReference)) {
+			return null;
+		}
+		try {
+			final IEditorInput input = ((IEditorReference) partRef).getEditorInput();
+			if (input instanceof IFileEditorInput) {
+				return ((IFileEditorInput) input).getFile();
+			}
+		} catch (PartInitException e) {
+			CinderLog.logErrorInfo("EditorTracker", e);
+		}
+		return null;
+	}
+}
@@ -0,0 +1,57 @@
+package org.art_core.dev.cinder.controller;
+
+import java.text.MessageFormat;
+import java.util.ResourceBundle;
+
+import org.art_core.dev.cinder.model.FindingHistory;
+import org.art_core.dev.cinder.model.ItemManagerEvent;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Records the delta of one ingestion in the finding history. The first
+ * record replays the whole journal and every record appends to it, so
+ * this is kept off the UI thread. All history jobs share one rule and
+ * thus record the deltas one at a time, in the order they were applied.
+ * @author Florian Anderiasch
+ *
+ */
+public class HistoryJob extends Job {
+	private static ResourceBundle cRes = ResourceBundle.getBundle("org.art_core.dev.cinder.CinderResource");
+	private static final ISchedulingRule HISTORY_RULE = new ISchedulingRule() {
+		@Override
+		public boolean contains(final ISchedulingRule rule) {
+			return rule == this;
+		}
+
+		@Override
+		public boolean isConflicting(final ISchedulingRule rule) {
+			return rule == this;
+		}
+	};
+
+	private final long lBuild;
+	private final ItemManagerEvent delta;
+
+	/**
+	 * Constructor.
+	 * @param lBuild the build timestamp in msec
+	 * @param delta the changes of the ingestion
+	 */
+	public HistoryJob(final long lBuild, final ItemManagerEvent delta) {
+		super(MessageFormat.format(cRes.getString("JOB_HISTORY"), Long.valueOf(lBuild)));
+		this.lBuild = lBuild;
+		this.delta = delta;
+		setSystem(true);
+		setRule(HISTORY_RULE);
+	}
+
+	@Override
+	protected IStatus run(final IProgressMonitor monitor) {
+		FindingHistory.getHistory().record(lBuild, delta);
+		return Status.OK_STATUS;
+	}
+}
@@ -0,0 +1,184 @@
+package org.art_core.dev.cinder.controller;
+
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.List;
+import java.util.ResourceBundle;
+
+import org.art_core.dev.cinder.CinderLog;
+import org.art_core.dev.cinder.CinderPlugin;
+import org.art_core.dev.cinder.input.IChunkListener;
+import org.art_core.dev.cinder.input.XmlInputReader;
+import org.art_core.dev.cinder.model.IItem;
+import org.art_core.dev.cinder.model.ItemManagerEvent;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Reads and parses one report in the background. The items are handed to
+ * the UI thread only once the whole report was parsed; if the job is
+ * canceled, runs out of time or the report cannot be read, nothing is
+ * applied.
+ * @author Florian Anderiasch
+ *
+ */
+public class IngestJob extends Job {
+	private static ResourceBundle cRes = ResourceBundle.getBundle("org.art_core.dev.cinder.CinderResource");
+
+	private final MainController parent;
+	private final ReportSource source;
+	private final boolean bStreaming;
+	private volatile XmlInputReader reader;
+
+	/**
+	 * Constructor.
+	 * @param mc
+	 * @param src the report to read
+	 * @param bStream whether to show findings in chunks while parsing
+	 */
+	public IngestJob(final MainController mc, final ReportSource src, final boolean bStream) {
+		super(MessageFormat.format(cRes.getString("JOB_INGEST"), src.getLocation()));
+		this.parent = mc;
+		this.source = src;
+		this.bStreaming = bStream;
+		// a source is never read twice at the same time
+		setRule(new SourceRule(src.getId()));
+	}
+
+	public ReportSource getSource() {
+		return source;
+	}
+
+	@Override
+	protected IStatus run(final IProgressMonitor monitor) {
+		final XmlInputReader xir = new XmlInputReader();
+		xir.setParsers(source.getParsers());
+		xir.setSuppressions(parent.getSuppressions());
+		xir.setMonitor(monitor, source.getTimeout() * 1000L);
+		if (bStreaming) {
+			xir.setChunkListener(new IChunkListener() {
+				@Override
+				public void chunkParsed(final List<IItem> chunk) {
+					asyncExec(new Runnable() {
+						@Override
+						public void run() {
+							parent.applyChunk(source.getId(), chunk);
+						}
+					});
+				}
+
+				@Override
+				public void chunksDiscarded() {
+					discardChunks();
+				}
+			});
+		}
+		reader = xir;
+		try {
+			switch (source.getMode()) {
+			case MainController.FILE_LOCAL:
+				xir.readFromLocalFile(source.getLocation());
+				break;
+			case MainController.FILE_WORKSPACE:
+				xir.readFromWorkspaceFile(source.getLocation());
+				break;
+			default:
+				xir.readFromUri(source.getLocation());
+				break;
+			}
+		} catch (OperationCanceledException e) {
+			CinderLog.logDebug("IJ:canceled " + source);
+			discardChunks();
+			return Status.CANCEL_STATUS;
+		} finally {
+			reader = null;
+			monitor.done();
+		}
+		if (!xir.isComplete()) {
+			// keep the findings of the last good read
+			CinderLog.logInfo("IJ:could not read " + source + ", keeping its findings");
+			discardChunks();
+			return Status.OK_STATUS;
+		}
+
+		final Collection<IItem> items = xir.getItems();
+		CinderLog.logDebug("IJ:" + source + ":" + items.size());
+		final Metrics metrics = Metrics.getMetrics();
+		metrics.recordNanos(source.getId(), Metrics.Stage.FETCH, xir.getFetchNanos());
+		metrics.recordNanos(source.getId(), Metrics.Stage.PARSE, xir.getParseNanos());
+		metrics.recordVolume(source.getId(), xir.getBytesRead(), items);
+
+		// runs after all chunks, as asyncExec keeps the order
+		asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				final ItemManagerEvent delta = parent.applyReport(source.getId(), items);
+				parent.refreshMarkers(source.getId(), delta);
+			}
+		});
+		return Status.OK_STATUS;
+	}
+
+	private void discardChunks() {
+		if (bStreaming) {
+			asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					parent.discardChunks(source.getId());
+				}
+			});
+		}
+	}
+
+	private static void asyncExec(final Runnable runnable) {
+		Display display = Display.getCurrent();
+		if (display == null) {
+			display = Display.getDefault();
+		}
+		display.asyncExec(runnable);
+	}
+
+	/**
+	 * Interrupts an in-flight read right away instead of waiting for the
+	 * next progress check.
+	 */
+	@Override
+	protected void canceling() {
+		final XmlInputReader xir = reader;
+		if (xir != null) {
+			xir.abort();
+		}
+	}
+
+	@Override
+	public boolean belongsTo(final Object family) {
+		return CinderPlugin.PLUGIN_ID.equals(family);
+	}
+
+	/**
+	 * Serializes the jobs of one source, e.g. a push notification
+	 * arriving while the periodic check runs.
+	 */
+	private static class SourceRule implements ISchedulingRule {
+		private final String sId;
+
+		SourceRule(final String sId) {
+			this.sId = sId;
+		}
+
+		@Override
+		public boolean contains(final ISchedulingRule rule) {
+			return rule == this;
+		}
+
+		@Override
+		public boolean isConflicting(final ISchedulingRule rule) {
+			return rule instanceof SourceRule && ((SourceRule) rule).sId.equals(sId);
+		}
+	}
+}
@@ -1,31 +1,51 @@
 package org.art_core.dev.cinder.controller;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.art_core.dev.cinder.CinderLog;
 import org.art_core.dev.cinder.CinderPlugin;
 import org.art_core.dev.cinder.input.PropertiesInputReader;
+import org.art_core.dev.cinder.input.SuppressionRules;
 import org.art_core.dev.cinder.input.XmlInputReader;
 import org.art_core.dev.cinder.model.IItem;
+import org.art_core.dev.cinder.model.ItemBudget;
+import org.art_core.dev.cinder.model.ItemSource;
 import org.art_core.dev.cinder.model.ItemStatus;
 import org.art_core.dev.cinder.model.PropertiesItem;
+import org.art_core.dev.cinder.model.StatusStore;
 import org.art_core.dev.cinder.model.ItemManager;
+import org.art_core.dev.cinder.model.ItemManagerEvent;
 import org.art_core.dev.cinder.model.ItemType;
 import org.art_core.dev.cinder.prefs.CinderPrefPage;
 import org.art_core.dev.cinder.views.JFInputView;
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.TextSelection;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.ui.IEditorDescriptor;
@@ -45,11 +65,41 @@ import org.eclipse.ui.texteditor.ITextEditor;
 public class MainController {
 	private ItemManager manager;
 	private JFInputView cView;
+	private MarkerWriter markerWriter;
+	private EditorTracker tracker;
+	private AnnotationOverlay overlay;
+	private final Map<String, IFile> resourceCache = new HashMap<String, IFile>();
+	// report locations no workspace file was found for, until the next ingestion
+	private final Set<String> unresolved = new HashSet<String>();
+	// workspace files to the report locations resolving to them
+	private Map<IFile, List<String>> fileIndex;
+	private int iFileIndexRevision;
+	private PathMapper pathMapper = new PathMapper("");
+	private final SourceRegistry registry = new SourceRegistry();
+	private ScheduledExecutorService scheduler;
+	private PushListener pushListener;
+	private SuppressionRules suppressions = SuppressionRules.NONE;
+	private String sSuppressionsFile = "";
+	private long lSuppressionsModified;
 	public static final int FILE_LOCAL = 0;
 	public static final int FILE_REMOTE = 1;
 	public static final int FILE_WORKSPACE = 2;
+	public static final String MARKER_MODE_EAGER = "eager";
+	public static final String MARKER_MODE_LAZY = "lazy";
+	public static final String MARKER_MODE_ANNOTATIONS = "annotations";
+	// upper bound of concurrent ingestions
+	private static final int MAX_WORKERS = 4;
+	private static final long FIRST_CHECK_DELAY = 10000;
 	private static final String JAVAEDITORID = "org.eclipse.jdt.ui.CompilationUnitEditor";
+	private static final String PATH_MAPPINGS = CinderPrefPage.P_STRING + "_path_mappings";
 	private IPreferenceStore ipsPref = CinderPlugin.getDefault().getPreferenceStore();
+	private final IPropertyChangeListener prefListener = new IPropertyChangeListener() {
+		public void propertyChange(final PropertyChangeEvent event) {
+			if (PATH_MAPPINGS.equals(event.getProperty())) {
+				updatePathMapper();
+			}
+		}
+	};
 	/**
 	 * Constructor.
 	 * @param view
@@ -57,54 +107,161 @@ public class MainController {
 	public MainController(JFInputView view) {
 		this.cView = view;
 		this.manager = ItemManager.getManager();
+		this.applyBudget();
+		this.updatePathMapper();
+		ipsPref.addPropertyChangeListener(prefListener);
+		this.markerWriter = new MarkerWriter(this);
+		this.overlay = new AnnotationOverlay(view.getSite().getPage());
+		this.tracker = new EditorTracker(this, view.getSite().getPage());
 		this.checkIntervals();
+		this.startPushListener();
 	}
 	
 	/**
-	 * Regularly check for updates from the CI system.
+	 * Releases the listeners of the controller.
 	 */
-	private void checkIntervals() {
-		createTask("xml_url", 1, MainController.FILE_REMOTE);
-		createTask("xml_url", 2, MainController.FILE_REMOTE);
-		createTask("xml_file", 1, MainController.FILE_LOCAL);
-		createTask("xml_file", 2, MainController.FILE_LOCAL);
+	public void dispose() {
+		ipsPref.removePropertyChangeListener(prefListener);
+		tracker.dispose();
+		markerWriter.dispose();
+		overlay.detachAll();
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+		if (pushListener != null) {
+			pushListener.dispose();
+		}
+		Job.getJobManager().cancel(CinderPlugin.PLUGIN_ID);
 	}
 	
 	/**
-	 * Creates tasks for periodically updating the source files.
+	 * Regularly check for updates from the CI system. All sources share
+	 * one bounded pool; each source is rescheduled only after its previous
+	 * check finished, so a slow server only ever occupies one worker.
+	 */
+	private void checkIntervals() {
+		registry.load(ipsPref);
+		if (registry.size() == 0) {
+			return;
+		}
+		final int iWorkers = Math.min(registry.size(), MAX_WORKERS);
+		scheduler = Executors.newScheduledThreadPool(iWorkers, new ThreadFactory() {
+			private int iCount;
+
+			@Override
+			public synchronized Thread newThread(final Runnable r) {
+				final Thread t = new Thread(r, "Cinder ingestion " + (++iCount));
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		for (ReportSource src : registry.getSources()) {
+			scheduler.scheduleWithFixedDelay(new CheckFilesTask(this, src),
+					FIRST_CHECK_DELAY, src.getInterval() * 60L * 1000L, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Listens for notifications of new reports if enabled.
+	 */
+	private void startPushListener() {
+		if (!ipsPref.getBoolean(CinderPrefPage.P_BOOLEAN + "_push")) {
+			return;
+		}
+		final String sToken = ipsPref.getString(CinderPrefPage.P_STRING + "_push_token");
+		if (sToken.length() == 0) {
+			CinderLog.logInfo("Not listening for report notifications: no token is set");
+			return;
+		}
+		final int iPort = ipsPref.getInt(CinderPrefPage.P_INTEGER + "_push_port");
+		try {
+			pushListener = new PushListener(this, iPort, sToken);
+			pushListener.start();
+		} catch (IOException e) {
+			CinderLog.logError("Could not listen for report notifications on port " + iPort, e);
+		}
+	}
+
+	/**
+	 * Ingests a report right away because the CI server announced it.
+	 * The report is always read from the configured location of the
+	 * source. May be called from any thread.
 	 * 
-	 * @param sIdentifier the name of the field set, e.g. xml_file
-	 * @param iNumber the number of the field set, e.g. 1
-	 * @param iMode either FILE_LOCAL or FILE_REMOTE
-	 * @param iDelay delay in msec
-	 */
-	private void createTask(String sIdentifier, int iNumber, int iMode, long iDelay) {
-		String sCheckString = CinderPrefPage.P_STRING + "_" + sIdentifier + "_" + iNumber;
-		String sCheckInt = CinderPrefPage.P_INTEGER + "_" + sIdentifier + "_" + iNumber;
-		String sCheckBool = CinderPrefPage.P_BOOLEAN + "_" + sIdentifier + "_" + iNumber;
-		
-		long iPeriod = 1000 * 60 * ipsPref.getInt(sCheckInt + "_time");
-		boolean bCheck = ipsPref.getBoolean(sCheckBool + "_check");
-		String sCheck = ipsPref.getString(sCheckString);
-		
-		TimerTask ttCheck = new CheckFilesTask(this, sCheck, iMode);
-		Timer tCheck = new Timer();
-		
-		if (bCheck && iPeriod > 0) {
-			tCheck.schedule(ttCheck, iDelay, iPeriod);
+	 * @param sSource the source id or <code>null</code> to find it by URL
+	 * @param sUrl the configured location of the source or <code>null</code>
+	 * @return false if there is no such source
+	 */
+	public boolean notifyReport(final String sSource, final String sUrl) {
+		final ReportSource src = (sSource == null) ? registry.findByLocation(sUrl) : registry.get(sSource);
+		if (src == null) {
+			return false;
 		}
+		new IngestJob(this, src, isStreaming()).schedule();
+		return true;
 	}
-	
-	private void createTask(String sIdentifier, int iNumber, int iMode) {
-		createTask(sIdentifier, iNumber, iMode, 10000);
+
+	/**
+	 * Returns the compiled suppression rules of the configured file. The
+	 * file is compiled again only when it or the preference changed.
+	 * May be called from any thread.
+	 * @return the rules, NONE if no file is configured
+	 */
+	public synchronized SuppressionRules getSuppressions() {
+		final String sFile = ipsPref.getString(CinderPrefPage.P_STRING + "_suppressions");
+		if (sFile.length() == 0) {
+			suppressions = SuppressionRules.NONE;
+		} else {
+			final File fRules = new File(sFile);
+			if (!sFile.equals(sSuppressionsFile) || fRules.lastModified() != lSuppressionsModified) {
+				lSuppressionsModified = fRules.lastModified();
+				suppressions = SuppressionRules.load(fRules);
+			}
+		}
+		sSuppressionsFile = sFile;
+		return suppressions;
 	}
-	
+
+	/**
+	 * Applies the item and memory budget from the preferences.
+	 */
+	private void applyBudget() {
+		final int iMaxItems = ipsPref.getInt(CinderPrefPage.P_INTEGER + "_max_items");
+		final long lMaxBytes = ipsPref.getInt(CinderPrefPage.P_INTEGER + "_max_memory") * 1024L * 1024L;
+		manager.setBudget(new ItemBudget(iMaxItems, lMaxBytes));
+	}
+
+	/**
+	 * Pages findings hidden by the budget back in.
+	 * @param iCount the maximum number of findings
+	 */
+	public void showHidden(final int iCount) {
+		manager.showHidden(iCount);
+		cView.refresh();
+	}
+
+	/**
+	 * Returns the sources that are checked periodically.
+	 * @return
+	 */
+	public SourceRegistry getRegistry() {
+		return registry;
+	}
+
 	/**
 	 * Shows all markers for findings.
 	 */
 	public void showMarkersAll() {
-		for (IItem oItem : manager.getItems()) {
-			showMarkersSelected(oItem);
+		final String sMode = getMarkerMode();
+		if (MARKER_MODE_ANNOTATIONS.equals(sMode)) {
+			for (IFile res : tracker.getOpenFiles()) {
+				overlay.attach(res, getItemsForFile(res));
+			}
+		} else if (MARKER_MODE_LAZY.equals(sMode)) {
+			for (IFile res : tracker.getOpenFiles()) {
+				markerWriter.createMarkers(getItemsForFile(res));
+			}
+		} else {
+			markerWriter.createMarkers(Arrays.asList(manager.getItems()));
 		}
 	}
 
@@ -112,9 +269,58 @@ public class MainController {
 	 * Hides all markers for findings.
 	 */
 	public void hideMarkersAll() {
-		for (IItem oItem : manager.getItems()) {
-			hideMarkersSelected(oItem);
+		markerWriter.deleteAllMarkers();
+		overlay.detachAll();
+	}
+
+	/**
+	 * Updates the markers or annotations after the partition of a source
+	 * changed. Only the files of findings that appeared, disappeared or
+	 * moved are touched; in lazy and annotation mode only those that are
+	 * open in an editor.
+	 * @param sPartition the source id or file name
+	 * @param delta the changes returned by applyReport
+	 */
+	public void refreshMarkers(final String sPartition, final ItemManagerEvent delta) {
+		final long lStart = System.nanoTime();
+		final Set<IFile> files = new LinkedHashSet<IFile>();
+		addFiles(files, delta.getItemsAdded());
+		addFiles(files, delta.getItemsRemoved());
+		addFiles(files, delta.getItemsChanged());
+		final String sMode = getMarkerMode();
+		if (!MARKER_MODE_EAGER.equals(sMode)) {
+			files.retainAll(tracker.getOpenFiles());
+		}
+		if (MARKER_MODE_ANNOTATIONS.equals(sMode)) {
+			for (IFile res : files) {
+				overlay.attach(res, getItemsForFile(res));
+			}
+		} else {
+			final Map<IFile, List<IItem>> byFile = new LinkedHashMap<IFile, List<IItem>>();
+			for (IFile res : files) {
+				byFile.put(res, new ArrayList<IItem>(getItemsForFile(res)));
+			}
+			markerWriter.replaceFileMarkers(byFile);
 		}
+		Metrics.getMetrics().recordStage(sPartition, Metrics.Stage.MARKERS, lStart);
+	}
+
+	private void addFiles(final Set<IFile> files, final IItem[] items) {
+		for (IItem item : items) {
+			final IFile res = getResource(item.getLocation());
+			if (res != null) {
+				files.add(res);
+			}
+		}
+	}
+
+	/**
+	 * Recreates the markers of a single source, leaving all other
+	 * markers untouched.
+	 * @param src the source
+	 */
+	public void refreshMarkers(final ItemSource src) {
+		markerWriter.replaceSourceMarkers(src, manager.getItemsBySource(src));
 	}
 
 	/**
@@ -122,51 +328,19 @@ public class MainController {
 	 * @param pItem
 	 */
 	public void showMarkersSelected(final IItem pItem) {
-		String sMyLoc;
-		IFile res;
-		IMarker marker;
-		
-		
-		sMyLoc = pItem.getLocation();
-		res = getResource(sMyLoc);
-		ItemType type = pItem.getType();
-
-		try {
-			switch (type.getPostion()) {
-			case 13:
-				marker = res.createMarker(IMarker.PROBLEM);
-				marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
-				break;
-			case 12:
-				marker = res.createMarker(IMarker.PROBLEM);
-				marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
-				break;
-			case 11:
-				marker = res.createMarker(IMarker.PROBLEM);
-				marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO);
-				break;
-			default:
-				marker = res.createMarker(IMarker.TEXT);
-				marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO);
-				break;
-			}
-			
-			marker.setAttribute(IMarker.MESSAGE, pItem.getName() + "("
-					+ pItem.getMessage() + "): " + pItem.getLine());
-			// marker.setAttribute(IMarker.CHAR_START, 50);
-			// marker.setAttribute(IMarker.CHAR_END, 70);
-			marker.setAttribute(IMarker.LINE_NUMBER, pItem.getLine());
-			
-			marker.setAttribute("key", pItem.getName());
-			marker.setAttribute("violation", pItem.getMessage());
-			
-			CinderLog.logDebug("JFIV:MARKER:" + marker.getType());
-			CinderLog.logDebug("JFIV:MARKER:"
-					+ marker.getAttribute(IMarker.LINE_NUMBER, 666));
-		} catch (NullPointerException e) {
-			// nothing found, all ok
-		} catch (Exception e) {
-			CinderLog.logErrorInfo("showMarkersAll", e);
+		showMarkersSelected(Collections.singletonList(pItem));
+	}
+	
+	/**
+	 * Shows selected markers.
+	 * @param items
+	 */
+	public void showMarkersSelected(final Collection<IItem> items) {
+		if (MARKER_MODE_ANNOTATIONS.equals(getMarkerMode())) {
+			// annotations always cover whole files
+			showMarkersAll();
+		} else {
+			markerWriter.createMarkers(items);
 		}
 	}
 	
@@ -176,16 +350,114 @@ public class MainController {
 	 * @param pItem
 	 */
 	public void hideMarkersSelected(final IItem pItem) {
-		// find the correct editor window, based on the name
-		IFile res = getResource(pItem.getLocation());
+		hideMarkersSelected(Collections.singletonList(pItem));
+	}
+	
+	/**
+	 * Hides selected markers.
+	 * 
+	 * @param items
+	 */
+	public void hideMarkersSelected(final Collection<IItem> items) {
+		if (MARKER_MODE_ANNOTATIONS.equals(getMarkerMode())) {
+			for (IItem pItem : items) {
+				final IFile res = getResource(pItem.getLocation());
+				if (res != null) {
+					overlay.detach(res);
+				}
+			}
+		} else {
+			markerWriter.deleteMarkers(items);
+		}
+	}
+	
+	/**
+	 * Returns how findings are shown: as markers on all files, as markers
+	 * on open files only, or as annotations in open editors.
+	 * @return one of the MARKER_MODE constants
+	 */
+	public String getMarkerMode() {
+		return ipsPref.getString(CinderPrefPage.P_CHOICE + "_marker_mode");
+	}
+	
+	/**
+	 * Whether markers are only created for files open in an editor.
+	 * @return
+	 */
+	public boolean isLazyMarkerMode() {
+		return MARKER_MODE_LAZY.equals(getMarkerMode());
+	}
+	
+	/**
+	 * Materializes the markers or annotations of a file when it is opened
+	 * in an editor, including files opened by navigating from the view.
+	 * @param res the file
+	 */
+	public void editorOpened(final IFile res) {
+		final String sMode = getMarkerMode();
+		if (MARKER_MODE_ANNOTATIONS.equals(sMode)) {
+			overlay.attach(res, getItemsForFile(res));
+		} else if (MARKER_MODE_LAZY.equals(sMode)) {
+			markerWriter.deleteFileMarkers(res);
+			markerWriter.createMarkers(getItemsForFile(res));
+		}
+	}
+	
+	/**
+	 * Drops the markers or annotations of a file once its editor is closed.
+	 * @param res the file
+	 */
+	public void editorClosed(final IFile res) {
+		final String sMode = getMarkerMode();
+		if (MARKER_MODE_ANNOTATIONS.equals(sMode)) {
+			overlay.detach(res);
+		} else if (MARKER_MODE_LAZY.equals(sMode)) {
+			markerWriter.deleteFileMarkers(res);
+		}
+	}
+	
+	/**
+	 * Collects the items of a workspace file from the per-location index.
+	 * @param res the file
+	 * @return the items
+	 */
+	public Collection<IItem> getItemsForFile(final IFile res) {
+		final Collection<IItem> items = new ArrayList<IItem>();
+		final List<String> locations = getFileIndex().get(res);
+		if (locations != null) {
+			for (String sLoc : locations) {
+				items.addAll(manager.getItemsByLocation(sLoc));
+			}
+		}
+		return items;
+	}
 
-		try {
-			res.deleteMarkers(null, true, 2);
-		} catch (NullPointerException e) {
-			// nothing selected, everything ok
-		} catch (CoreException e) {
-			CinderLog.logError(e);
+	/**
+	 * Returns the report locations by the workspace file they resolve to.
+	 * The index is rebuilt only after the set of locations changed, i.e.
+	 * at most once per ingestion.
+	 * @return
+	 */
+	private Map<IFile, List<String>> getFileIndex() {
+		if (fileIndex != null && iFileIndexRevision == manager.getLocationRevision()) {
+			return fileIndex;
+		}
+		final Map<IFile, List<String>> index = new HashMap<IFile, List<String>>();
+		for (String sLoc : manager.getLocations()) {
+			final IFile res = getResource(sLoc);
+			if (res == null) {
+				continue;
+			}
+			List<String> locations = index.get(res);
+			if (locations == null) {
+				locations = new ArrayList<String>(1);
+				index.put(res, locations);
+			}
+			locations.add(sLoc);
 		}
+		fileIndex = index;
+		iFileIndexRevision = manager.getLocationRevision();
+		return fileIndex;
 	}
 	
 	/**
@@ -194,8 +466,25 @@ public class MainController {
 	 * @param status
 	 */
 	public void setStatus(IItem item, ItemStatus status) {
-		CinderLog.logDebug("setting status to " + status.name());
-		item.setStatus(status);
+		setStatus(Collections.singletonList(item), status);
+	}
+
+	/**
+	 * Sets the status for many items, persisting it with one write.
+	 * @param items e.g. the selection or a filter result
+	 * @param status
+	 */
+	public void setStatus(final Collection<IItem> items, final ItemStatus status) {
+		final List<IItem> changed = manager.setStatus(items, status);
+		CinderLog.logDebug("setting status to " + status.name() + " for " + changed.size());
+		if (changed.isEmpty()) {
+			return;
+		}
+		final Map<String, ItemStatus> statuses = new HashMap<String, ItemStatus>();
+		for (IItem item : changed) {
+			statuses.put(item.getFingerprint(), status);
+		}
+		StatusStore.getStore().putAll(statuses);
 	}
 
 	/**
@@ -203,7 +492,7 @@ public class MainController {
 	 */
 	public void clearAll() {
 		manager.reset();
-		cView.getViewer().refresh();
+		cView.refresh();
 	}
 	
 	/**
@@ -211,7 +500,7 @@ public class MainController {
 	 */
 	public void clearSelected(IItem item) {
 		manager.remove(item);
-		cView.getViewer().refresh();
+		cView.refresh();
 	}
 	
 	/**
@@ -219,12 +508,12 @@ public class MainController {
 	 */
 	public void select() {
 		// select the clicked item from the view
-		final ISelection selection = cView.getViewer().getSelection();
-		final IItem item = (IItem) ((IStructuredSelection) selection)
-				.getFirstElement();
-		if (item == null) {
+		final ISelection selection = cView.getSelection();
+		final Object oFirst = ((IStructuredSelection) selection).getFirstElement();
+		if (!(oFirst instanceof IItem)) {
 			return;
 		}
+		final IItem item = (IItem) oFirst;
 
 		final IFile res = getResource(item.getLocation());
 		AbstractTextEditor editor = null;
@@ -254,55 +543,15 @@ public class MainController {
 	/**
 	 * Converts line numbers to internal eclipse offsets.
 	 * @param editor
-	 * @param pItem
+	 * @param iOff
+	 * @param iLine
 	 * @return
 	 * @throws Exception
 	 */
 	private int[] convertLineToOffset(AbstractTextEditor editor, int iOff, int iLine) throws Exception {
-		int[] ret = new int[2];
-		
 		final IEditorInput input = editor.getEditorInput();
 		final IDocument doc = ((ITextEditor) editor).getDocumentProvider().getDocument(input);
-
-		int iLineOffset = -1;
-		int iLineLength = -1;
-		
-		int iLen = 5;
-
-		iLineOffset = doc.getLineOffset(iLine - 1);
-		iLineLength = doc.getLineLength(iLine - 1);
-		CinderLog.logDebug("JFIV:LineOff:" + iLineOffset + " LineLen: " + iLineLength);
-		if (iLineOffset >= 0) {
-			iOff += iLineOffset;
-			CinderLog.logDebug("JFIV:getLine:" + iLine + " iOff: " + iOff);
-			final StringBuilder sbX = new StringBuilder();
-			sbX.append(doc.get(iOff, 3));
-			CinderLog.logDebug("JFIV:numLines:" + doc.getNumberOfLines() + " t: " + sbX.toString());
-			if (iLineLength >= 0) {
-				iLen = iLineLength;
-
-				// optional stripping of leading whitespace
-				int iCounter = 0;
-				String test = "";
-				for (int i = 0; i <= iLineLength; i++) {
-					test = doc.get(iLineOffset + i, 1);
-					if (" ".equals(test) || "\t".equals(test)) {
-						iCounter++;
-					} else {
-						break;
-					}
-				}
-				iOff += iCounter;
-				iLen -= iCounter;
-				CinderLog.logDebug("JFIV:++:" + iCounter);
-			}
-		}
-		// avoid to select the line break at the end
-		iLen -= 1;
-		
-		ret[0] = iOff;
-		ret[1] = iLen;
-		return ret;
+		return DocumentNavigator.getLineSelection(doc, iOff, iLine);
 	}
 	
 	/**
@@ -328,18 +577,13 @@ public class MainController {
 		dummy.add(new PropertiesItem(sKey, "TASK_ERROR", ItemType.TASK_ERROR));
 		// end bogus list
 		
-		for (IItem item : dummy) {
-			manager.add(item);
-		}
+		manager.addAll(dummy);
 
 		// read from properties file
 		final PropertiesInputReader pir = new PropertiesInputReader();
 		pir.readFromWorkspaceFile("cinder.properties");
-		Collection<IItem> coll = pir.getItems();
-		for (IItem item : coll) {
-			manager.add(item);
-		}
-		cView.getViewer().refresh();
+		manager.addAll(pir.getItems());
+		cView.refresh();
 	}
 
 	/**
@@ -349,11 +593,11 @@ public class MainController {
 		// read from XML file
 		final XmlInputReader xir = new XmlInputReader();
 		xir.readFromWorkspaceFile("cinder.xml");
-		Collection<IItem> coll = xir.getItems();
-		for (IItem item : coll) {
-			manager.add(item);
+		if (!xir.isComplete()) {
+			return;
 		}
-		cView.getViewer().refresh();
+		manager.replace(xir.getFilename(), xir.getItems());
+		cView.refresh();
 	}
 
 	/**
@@ -362,42 +606,124 @@ public class MainController {
 	 * @param sFile
 	 */
 	public void insertFromFile(final String sFile, final int iType) {
-		try {
-			CinderLog.logDebug("JFCP_IFF:" + sFile);
-			final XmlInputReader xir = new XmlInputReader();
+		CinderLog.logDebug("JFCP_IFF:" + sFile);
+		final ReportSource src = new ReportSource(sFile, sFile, iType, 0,
+				EnumSet.noneOf(ItemSource.class), SourceRegistry.DEFAULT_TIMEOUT);
+		final IngestJob job = new IngestJob(this, src, isStreaming());
+		job.setUser(true);
+		job.schedule();
+	}
 
-			switch (iType) {
-			case FILE_LOCAL:
-				xir.readFromLocalFile(sFile);
-				break;
-			case FILE_WORKSPACE:
-				xir.readFromWorkspaceFile(sFile);
-				break;
-			default:
-				xir.readFromUri(sFile);
-				break;
-			}
+	/**
+	 * Whether findings are shown in chunks while a report is parsed.
+	 * @return
+	 */
+	public boolean isStreaming() {
+		return ipsPref.getBoolean(CinderPrefPage.P_BOOLEAN + "_streaming");
+	}
 
-			final Collection<IItem> coll = xir.getItems();
-			CinderLog.logDebug("JFCP_IFF:" + coll.size());
+	/**
+	 * Shows a chunk of a report that is still being parsed.
+	 * Must run on the UI thread.
+	 * 
+	 * @param sPartition the source id or file name
+	 * @param chunk the next findings
+	 */
+	public void applyChunk(final String sPartition, final Collection<IItem> chunk) {
+		manager.addProvisional(sPartition, chunk);
+		cView.chunkApplied();
+	}
 
-			for (IItem item : coll) {
-				manager.add(item);
-			}
-			cView.getViewer().refresh();
-		} catch (Exception e) {
-			CinderLog.logError(e);
+	/**
+	 * Drops the chunks of a report that could not be parsed completely.
+	 * Must run on the UI thread.
+	 * 
+	 * @param sPartition the source id or file name
+	 */
+	public void discardChunks(final String sPartition) {
+		manager.discardProvisional(sPartition);
+		cView.refresh();
+	}
+
+	/**
+	 * Replaces the partition of a source with freshly parsed items.
+	 * Must run on the UI thread.
+	 * 
+	 * @param sPartition the source id or file name
+	 * @param coll the parsed items
+	 * @return the changes against the previous report
+	 */
+	public ItemManagerEvent applyReport(final String sPartition, final Collection<IItem> coll) {
+		final Metrics metrics = Metrics.getMetrics();
+		long lStart = System.nanoTime();
+		if (!unresolved.isEmpty()) {
+			// files may have been created since, look them up again
+			unresolved.clear();
+			fileIndex = null;
 		}
+		final ItemManagerEvent delta = manager.replace(sPartition, coll);
+		new HistoryJob(System.currentTimeMillis(), delta).schedule();
+		metrics.recordStage(sPartition, Metrics.Stage.DIFF, lStart);
+		lStart = System.nanoTime();
+		cView.refresh();
+		metrics.recordStage(sPartition, Metrics.Stage.REFRESH, lStart);
+		return delta;
 	}
 	
 	/**
-	 * Get an Eclipse Resource in the workspace from a filename
+	 * Get an Eclipse Resource in the workspace from a filename. Misses are
+	 * cached too, as searching all projects is expensive; they are looked
+	 * up again with the next report or when the path mappings change.
 	 * @param sFile the filename representing the resource
 	 * @return the eclipse resource
 	 */
 	public IFile getResource(final String sFile) {
-		IFile res = null;
+		if (unresolved.contains(sFile)) {
+			Metrics.getMetrics().recordCacheHit(true);
+			return null;
+		}
+		IFile res = resourceCache.get(sFile);
+		if (res != null && res.exists()) {
+			Metrics.getMetrics().recordCacheHit(true);
+			return res;
+		}
+		Metrics.getMetrics().recordCacheHit(false);
+		res = findResource(sFile);
+		if (res != null) {
+			resourceCache.put(sFile, res);
+		} else {
+			unresolved.add(sFile);
+		}
+		return res;
+	}
+	
+	/**
+	 * Recompiles the path mappings if the preference changed. Called
+	 * when the controller is created and by the preference listener.
+	 */
+	private void updatePathMapper() {
+		final String sRules = ipsPref.getString(PATH_MAPPINGS);
+		if (!sRules.equals(pathMapper.getRules())) {
+			pathMapper = new PathMapper(sRules);
+			resourceCache.clear();
+			unresolved.clear();
+			fileIndex = null;
+		}
+	}
+
+	/**
+	 * Finds a file through the path mappings. Paths no mapping covers
+	 * are searched in all projects, shortening the path until it matches.
+	 * @param sFile the filename representing the resource
+	 * @return the eclipse resource
+	 */
+	private IFile findResource(final String sFile) {
 		final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		if (pathMapper.matches(sFile)) {
+			// a mapping is authoritative, no guessing
+			return pathMapper.resolve(root, sFile);
+		}
+		IFile res = null;
 		final IProject[] projects = root.getProjects();
 		String sProjName = "";
 		String sFileTmp = "";
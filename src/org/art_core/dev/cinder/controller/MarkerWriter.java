@@ -0,0 +1,312 @@
+package org.art_core.dev.cinder.controller;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.art_core.dev.cinder.CinderLog;
+import org.art_core.dev.cinder.CinderPlugin;
+import org.art_core.dev.cinder.model.IItem;
+import org.art_core.dev.cinder.model.ItemSource;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IMarkerDelta;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceRuleFactory;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
+
+/**
+ * Creates and deletes markers for many findings at once.
+ * All changes of a batch are done inside a single workspace operation,
+ * so the workspace only broadcasts one resource delta per batch.
+ * @author Florian Anderiasch
+ *
+ */
+public class MarkerWriter {
+	/**
+	 * The marker type of all findings; every ItemSource has its own subtype.
+	 */
+	public static final String MARKER_TYPE = CinderPlugin.PLUGIN_ID + ".finding";
+
+	private static final String[] ATTRIBUTE_NAMES = {
+		IMarker.SEVERITY, IMarker.MESSAGE, IMarker.LINE_NUMBER, "key", "violation", "source"
+	};
+
+	private final MainController parent;
+
+	/**
+	 * Counts the deleted Cinder markers from the resource deltas the
+	 * workspace broadcasts anyway, so no delete has to look its markers
+	 * up first.
+	 */
+	private final IResourceChangeListener deleteCounter = new IResourceChangeListener() {
+		@Override
+		public void resourceChanged(final IResourceChangeEvent event) {
+			int iDeleted = 0;
+			for (IMarkerDelta delta : event.findMarkerDeltas(MARKER_TYPE, true)) {
+				if (delta.getKind() == IResourceDelta.REMOVED) {
+					iDeleted++;
+				}
+			}
+			if (iDeleted > 0) {
+				Metrics.getMetrics().recordMarkersDeleted(iDeleted);
+			}
+		}
+	};
+
+	public MarkerWriter(final MainController mc) {
+		this.parent = mc;
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(deleteCounter,
+				IResourceChangeEvent.POST_CHANGE);
+	}
+
+	/**
+	 * Stops counting deleted markers.
+	 */
+	public void dispose() {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(deleteCounter);
+	}
+
+	/**
+	 * Creates markers for all given items.
+	 * @param items the findings
+	 */
+	public void createMarkers(final Collection<IItem> items) {
+		final Map<IFile, List<IItem>> byFile = groupByFile(items);
+		if (byFile.isEmpty()) {
+			return;
+		}
+		run(new IWorkspaceRunnable() {
+			@Override
+			public void run(final IProgressMonitor monitor) throws CoreException {
+				for (Map.Entry<IFile, List<IItem>> entry : byFile.entrySet()) {
+					create(entry.getKey(), entry.getValue());
+				}
+			}
+		}, byFile);
+	}
+
+	/**
+	 * Replaces all Cinder markers of some files with markers for the given
+	 * items, in one workspace operation.
+	 * @param byFile the files and all their findings, possibly none
+	 */
+	public void replaceFileMarkers(final Map<IFile, List<IItem>> byFile) {
+		if (byFile.isEmpty()) {
+			return;
+		}
+		run(new IWorkspaceRunnable() {
+			@Override
+			public void run(final IProgressMonitor monitor) throws CoreException {
+				for (Map.Entry<IFile, List<IItem>> entry : byFile.entrySet()) {
+					entry.getKey().deleteMarkers(MARKER_TYPE, true, IResource.DEPTH_ZERO);
+					create(entry.getKey(), entry.getValue());
+				}
+			}
+		}, byFile);
+	}
+
+	private void create(final IFile res, final List<IItem> items) throws CoreException {
+		for (IItem pItem : items) {
+			final IMarker marker = res.createMarker(getMarkerType(pItem.getSource()));
+			marker.setAttributes(ATTRIBUTE_NAMES, getAttributes(pItem));
+		}
+		Metrics.getMetrics().recordMarkers(items.size());
+	}
+
+	/**
+	 * Deletes the Cinder markers of the given items' sources on all files
+	 * the items belong to. Markers of other tools are left alone.
+	 * @param items the findings
+	 */
+	public void deleteMarkers(final Collection<IItem> items) {
+		final Map<IFile, List<IItem>> byFile = groupByFile(items);
+		if (byFile.isEmpty()) {
+			return;
+		}
+		run(new IWorkspaceRunnable() {
+			@Override
+			public void run(final IProgressMonitor monitor) throws CoreException {
+				for (Map.Entry<IFile, List<IItem>> entry : byFile.entrySet()) {
+					final Set<ItemSource> sources = EnumSet.noneOf(ItemSource.class);
+					for (IItem pItem : entry.getValue()) {
+						sources.add(pItem.getSource());
+					}
+					for (ItemSource src : sources) {
+						entry.getKey().deleteMarkers(getMarkerType(src), false, IResource.DEPTH_ZERO);
+					}
+				}
+			}
+		}, byFile);
+	}
+
+	/**
+	 * Deletes all Cinder markers on one file.
+	 * @param res the file
+	 */
+	public void deleteFileMarkers(final IFile res) {
+		try {
+			res.deleteMarkers(MARKER_TYPE, true, IResource.DEPTH_ZERO);
+		} catch (CoreException e) {
+			CinderLog.logError(e);
+		}
+	}
+
+	/**
+	 * Replaces all Cinder markers of one source in the workspace with
+	 * markers for the given items, in one workspace operation.
+	 * @param src the source
+	 * @param items all findings of the source
+	 */
+	public void replaceSourceMarkers(final ItemSource src, final Collection<IItem> items) {
+		final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		final IWorkspaceRoot root = workspace.getRoot();
+		final Map<IFile, List<IItem>> byFile = groupByFile(items);
+		run(new IWorkspaceRunnable() {
+			@Override
+			public void run(final IProgressMonitor monitor) throws CoreException {
+				root.deleteMarkers(getMarkerType(src), false, IResource.DEPTH_INFINITE);
+				for (Map.Entry<IFile, List<IItem>> entry : byFile.entrySet()) {
+					create(entry.getKey(), entry.getValue());
+				}
+			}
+		}, workspace.getRuleFactory().markerRule(root));
+	}
+
+	/**
+	 * Deletes all Cinder markers in the workspace.
+	 */
+	public void deleteAllMarkers() {
+		final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		try {
+			root.deleteMarkers(MARKER_TYPE, true, IResource.DEPTH_INFINITE);
+		} catch (CoreException e) {
+			CinderLog.logError(e);
+		}
+	}
+
+	/**
+	 * Finds the Cinder markers on a file.
+	 * @param res the file
+	 * @return the markers, never <code>null</code>
+	 */
+	public IMarker[] findMarkers(final IFile res) {
+		try {
+			return res.findMarkers(MARKER_TYPE, true, IResource.DEPTH_ZERO);
+		} catch (CoreException e) {
+			CinderLog.logErrorInfo("findMarkers", e);
+		}
+		return new IMarker[0];
+	}
+
+	/**
+	 * Returns the marker subtype of a source.
+	 * @param src the source
+	 * @return the marker type
+	 */
+	public static String getMarkerType(final ItemSource src) {
+		return MARKER_TYPE + "." + src.name().toLowerCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Runs a batch as one workspace operation, locking only the marker
+	 * rules of the affected files.
+	 * @param runnable the batch
+	 * @param byFile the affected files
+	 */
+	private void run(final IWorkspaceRunnable runnable, final Map<IFile, List<IItem>> byFile) {
+		final IResourceRuleFactory ruleFactory = ResourcesPlugin.getWorkspace().getRuleFactory();
+		ISchedulingRule rule = null;
+		for (IFile res : byFile.keySet()) {
+			rule = MultiRule.combine(rule, ruleFactory.markerRule(res));
+		}
+		run(runnable, rule);
+	}
+
+	/**
+	 * Runs a batch as one workspace operation.
+	 * @param runnable the batch
+	 * @param rule the rule to lock, may be <code>null</code>
+	 */
+	private void run(final IWorkspaceRunnable runnable, final ISchedulingRule rule) {
+		try {
+			ResourcesPlugin.getWorkspace().run(runnable, rule, IWorkspace.AVOID_UPDATE, null);
+		} catch (CoreException e) {
+			CinderLog.logError(e);
+		}
+	}
+
+	/**
+	 * Resolves the location of each item once and groups the items by file.
+	 * Items without a matching workspace file are skipped.
+	 * @param items the findings
+	 * @return the findings per file
+	 */
+	private Map<IFile, List<IItem>> groupByFile(final Collection<IItem> items) {
+		final Map<String, IFile> resolved = new LinkedHashMap<String, IFile>();
+		final Map<IFile, List<IItem>> byFile = new LinkedHashMap<IFile, List<IItem>>();
+		for (IItem pItem : items) {
+			final String sLoc = pItem.getLocation();
+			IFile res;
+			if (resolved.containsKey(sLoc)) {
+				res = resolved.get(sLoc);
+			} else {
+				res = parent.getResource(sLoc);
+				resolved.put(sLoc, res);
+			}
+			if (res == null) {
+				continue;
+			}
+			List<IItem> list = byFile.get(res);
+			if (list == null) {
+				list = new ArrayList<IItem>();
+				byFile.put(res, list);
+			}
+			list.add(pItem);
+		}
+		return byFile;
+	}
+
+	/**
+	 * Collects the attribute values in the order of ATTRIBUTE_NAMES.
+	 * @param pItem
+	 * @return the values
+	 */
+	private Object[] getAttributes(final IItem pItem) {
+		int iSeverity;
+		switch (pItem.getType().getPostion()) {
+		case 13:
+			iSeverity = IMarker.SEVERITY_ERROR;
+			break;
+		case 12:
+			iSeverity = IMarker.SEVERITY_WARNING;
+			break;
+		default:
+			iSeverity = IMarker.SEVERITY_INFO;
+			break;
+		}
+		return new Object[] {
+			Integer.valueOf(iSeverity),
+			pItem.getName() + "(" + pItem.getMessage() + "): " + pItem.getLine(),
+			Integer.valueOf(pItem.getLine()),
+			pItem.getName(),
+			pItem.getMessage(),
+			pItem.getSource().toString()
+		};
+	}
+}
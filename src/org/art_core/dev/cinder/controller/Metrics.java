@@ -0,0 +1,294 @@
+package org.art_core.dev.cinder.controller;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.art_core.dev.cinder.model.IItem;
+import org.art_core.dev.cinder.model.ItemBudget;
+
+/**
+ * Counters and latency histograms of the ingestion pipeline:
+ * fetching and parsing a report, diffing it into the ItemManager,
+ * writing markers and refreshing the viewer.
+ * All methods are cheap enough to be called for every ingestion.
+ * @author Florian Anderiasch
+ *
+ */
+public final class Metrics implements MetricsMBean {
+	// Singleton
+	private static Metrics metrics = new Metrics();
+	public static final String OBJECT_NAME = "org.art_core.dev.cinder:type=Metrics";
+
+	/**
+	 * The stages of one ingestion.
+	 */
+	public enum Stage {
+		FETCH, PARSE, DIFF, MARKERS, REFRESH
+	}
+
+	// source -> stage -> latencies
+	private final Map<String, Map<Stage, Histogram>> stages = new TreeMap<String, Map<Stage, Histogram>>();
+	// source -> { bytes, findings, estimated item bytes }
+	private final Map<String, long[]> volumes = new TreeMap<String, long[]>();
+	private long lCacheHits;
+	private long lCacheMisses;
+	private long lMarkersCreated;
+	private long lMarkersDeleted;
+
+	private Metrics() {
+	}
+
+	/**
+	 * Return singleton instance.
+	 * @return
+	 */
+	public static Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Records the duration of a stage.
+	 * @param sSource the source id or report name
+	 * @param stage
+	 * @param lStart the start as given by System.nanoTime()
+	 */
+	public void recordStage(final String sSource, final Stage stage, final long lStart) {
+		recordNanos(sSource, stage, System.nanoTime() - lStart);
+	}
+
+	public synchronized void recordNanos(final String sSource, final Stage stage, final long lNanos) {
+		Map<Stage, Histogram> map = stages.get(sSource);
+		if (map == null) {
+			map = new EnumMap<Stage, Histogram>(Stage.class);
+			stages.put(sSource, map);
+		}
+		Histogram hist = map.get(stage);
+		if (hist == null) {
+			hist = new Histogram();
+			map.put(stage, hist);
+		}
+		hist.add(lNanos / 1000L);
+	}
+
+	/**
+	 * Records the volume of one report.
+	 * @param sSource the source id or report name
+	 * @param lBytes the bytes read
+	 * @param items the parsed findings
+	 */
+	public synchronized void recordVolume(final String sSource, final long lBytes,
+			final Iterable<IItem> items) {
+		long[] volume = volumes.get(sSource);
+		if (volume == null) {
+			volume = new long[3];
+			volumes.put(sSource, volume);
+		}
+		volume[0] += lBytes;
+		for (IItem item : items) {
+			volume[1]++;
+			volume[2] += ItemBudget.estimateSize(item);
+		}
+	}
+
+	public synchronized void recordCacheHit(final boolean bHit) {
+		if (bHit) {
+			lCacheHits++;
+		} else {
+			lCacheMisses++;
+		}
+	}
+
+	public synchronized void recordMarkers(final int iCreated) {
+		lMarkersCreated += iCreated;
+	}
+
+	public synchronized void recordMarkersDeleted(final int iDeleted) {
+		lMarkersDeleted += iDeleted;
+	}
+
+	/**
+	 * Returns the findings parsed per second of a source, measured over
+	 * the fetch and parse stages.
+	 * @param sSource
+	 * @return
+	 */
+	public synchronized double getFindingsPerSecond(final String sSource) {
+		final long[] volume = volumes.get(sSource);
+		final Map<Stage, Histogram> map = stages.get(sSource);
+		if (volume == null || map == null) {
+			return 0;
+		}
+		long lMicros = 0;
+		for (Stage stage : new Stage[] { Stage.FETCH, Stage.PARSE }) {
+			final Histogram hist = map.get(stage);
+			if (hist != null) {
+				lMicros += hist.getSum();
+			}
+		}
+		return (lMicros == 0) ? 0 : volume[1] * 1000000.0 / lMicros;
+	}
+
+	/**
+	 * Returns a table of all stage histograms for display.
+	 * @return rows of source, stage, count, mean, p50, p95, max (msec)
+	 */
+	public synchronized List<String[]> getStageRows() {
+		final List<String[]> rows = new ArrayList<String[]>();
+		for (Map.Entry<String, Map<Stage, Histogram>> entry : stages.entrySet()) {
+			for (Map.Entry<Stage, Histogram> stage : entry.getValue().entrySet()) {
+				final Histogram hist = stage.getValue();
+				rows.add(new String[] {
+						entry.getKey(),
+						stage.getKey().name(),
+						String.valueOf(hist.getCount()),
+						millis(hist.getMean()),
+						millis(hist.getPercentile(0.5)),
+						millis(hist.getPercentile(0.95)),
+						millis(hist.getMax()),
+				});
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Returns a table of the volumes per source for display.
+	 * @return rows of source, bytes, findings, findings per second, estimated bytes
+	 */
+	public synchronized List<String[]> getVolumeRows() {
+		final List<String[]> rows = new ArrayList<String[]>();
+		for (Map.Entry<String, long[]> entry : volumes.entrySet()) {
+			final long[] volume = entry.getValue();
+			rows.add(new String[] {
+					entry.getKey(),
+					String.valueOf(volume[0]),
+					String.valueOf(volume[1]),
+					String.valueOf(Math.round(getFindingsPerSecond(entry.getKey()))),
+					String.valueOf(volume[2]),
+			});
+		}
+		return rows;
+	}
+
+	private static String millis(final double dMicros) {
+		return String.valueOf(Math.round(dMicros / 100.0) / 10.0);
+	}
+
+	@Override
+	public synchronized long getBytesRead() {
+		long lSum = 0;
+		for (long[] volume : volumes.values()) {
+			lSum += volume[0];
+		}
+		return lSum;
+	}
+
+	@Override
+	public synchronized long getFindingsParsed() {
+		long lSum = 0;
+		for (long[] volume : volumes.values()) {
+			lSum += volume[1];
+		}
+		return lSum;
+	}
+
+	@Override
+	public synchronized long getEstimatedItemBytes() {
+		long lSum = 0;
+		for (long[] volume : volumes.values()) {
+			lSum += volume[2];
+		}
+		return lSum;
+	}
+
+	@Override
+	public synchronized double getResourceCacheHitRate() {
+		final long lTotal = lCacheHits + lCacheMisses;
+		return (lTotal == 0) ? 0 : (double) lCacheHits / lTotal;
+	}
+
+	@Override
+	public synchronized long getMarkersCreated() {
+		return lMarkersCreated;
+	}
+
+	@Override
+	public synchronized long getMarkersDeleted() {
+		return lMarkersDeleted;
+	}
+
+	@Override
+	public synchronized String[] getStageSummary() {
+		final List<String[]> rows = getStageRows();
+		final String[] ret = new String[rows.size()];
+		for (int i = 0; i < ret.length; i++) {
+			final String[] row = rows.get(i);
+			ret[i] = row[0] + " " + row[1] + " n=" + row[2] + " mean=" + row[3]
+					+ " p50=" + row[4] + " p95=" + row[5] + " max=" + row[6];
+		}
+		return ret;
+	}
+
+	@Override
+	public synchronized void reset() {
+		stages.clear();
+		volumes.clear();
+		lCacheHits = 0;
+		lCacheMisses = 0;
+		lMarkersCreated = 0;
+		lMarkersDeleted = 0;
+	}
+
+	/**
+	 * A latency histogram with power of two buckets in usec, so it has a
+	 * fixed size no matter how many values are added.
+	 */
+	static final class Histogram {
+		private final long[] buckets = new long[64];
+		private long lCount;
+		private long lSum;
+		private long lMax;
+
+		void add(final long lMicros) {
+			final long lValue = Math.max(0, lMicros);
+			buckets[64 - Long.numberOfLeadingZeros(lValue)]++;
+			lCount++;
+			lSum += lValue;
+			lMax = Math.max(lMax, lValue);
+		}
+
+		long getCount() {
+			return lCount;
+		}
+
+		long getSum() {
+			return lSum;
+		}
+
+		long getMax() {
+			return lMax;
+		}
+
+		double getMean() {
+			return (lCount == 0) ? 0 : (double) lSum / lCount;
+		}
+
+		/**
+		 * Returns the upper bound of the bucket holding the percentile.
+		 */
+		long getPercentile(final double dFraction) {
+			final long lRank = (long) Math.ceil(dFraction * lCount);
+			long lSeen = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				lSeen += buckets[i];
+				if (lSeen >= lRank && lSeen > 0) {
+					return Math.min(lMax, (i == 0) ? 0 : (1L << i) - 1);
+				}
+			}
+			return lMax;
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package org.art_core.dev.cinder.controller;
+
+/**
+ * JMX view of the ingestion metrics.
+ * @author Florian Anderiasch
+ *
+ */
+public interface MetricsMBean {
+
+	long getBytesRead();
+
+	long getFindingsParsed();
+
+	long getEstimatedItemBytes();
+
+	double getResourceCacheHitRate();
+
+	long getMarkersCreated();
+
+	long getMarkersDeleted();
+
+	/**
+	 * Returns one line per source and stage with count, mean, p50, p95
+	 * and max in msec.
+	 * @return
+	 */
+	String[] getStageSummary();
+
+	void reset();
+}
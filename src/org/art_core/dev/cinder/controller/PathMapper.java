@@ -0,0 +1,157 @@
+package org.art_core.dev.cinder.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.art_core.dev.cinder.CinderLog;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Maps the paths of a CI server to workspace projects. Rules are given as
+ * <code>prefix=project[/folder]</code>, separated by ';', e.g.
+ * <pre>
+ * /var/ci/work/module-x=module-x;/var/ci/work/lib=shared/src
+ * </pre>
+ * The prefixes are compiled into a trie; a path takes the longest prefix
+ * that ends at a segment boundary, so resolving it is one walk over the
+ * path plus one findMember.
+ * @author Florian Anderiasch
+ *
+ */
+public class PathMapper {
+	private static final String RULE_SEP = ";";
+	private static final char ASSIGN = '=';
+	private static final char DELIM = '/';
+
+	private final Node root = new Node();
+	private final String sRules;
+	private int iSize;
+
+	/**
+	 * Compiles the rules.
+	 * @param sRules the rules as in the preferences, may be empty
+	 */
+	public PathMapper(final String sRules) {
+		this.sRules = sRules;
+		for (String sRule : sRules.split(RULE_SEP)) {
+			add(sRule.trim());
+		}
+	}
+
+	private void add(final String sRule) {
+		if (sRule.length() == 0) {
+			return;
+		}
+		final int iAssign = sRule.indexOf(ASSIGN);
+		if (iAssign <= 0 || iAssign == sRule.length() - 1) {
+			CinderLog.logInfo("PM:ignoring mapping " + sRule);
+			return;
+		}
+		String sPrefix = sRule.substring(0, iAssign).trim();
+		if (sPrefix.charAt(sPrefix.length() - 1) != DELIM) {
+			sPrefix = sPrefix + DELIM;
+		}
+		final String sTarget = sRule.substring(iAssign + 1).trim();
+		final int iProject = sTarget.indexOf(DELIM);
+		Node node = root;
+		for (int i = 0; i < sPrefix.length(); i++) {
+			node = node.getOrCreate(sPrefix.charAt(i));
+		}
+		node.iDepth = sPrefix.length();
+		if (iProject < 0) {
+			node.sProject = sTarget;
+			node.sFolder = "";
+		} else {
+			node.sProject = sTarget.substring(0, iProject);
+			node.sFolder = sTarget.substring(iProject + 1);
+			if (node.sFolder.length() > 0 && node.sFolder.charAt(node.sFolder.length() - 1) != DELIM) {
+				node.sFolder = node.sFolder + DELIM;
+			}
+		}
+		iSize++;
+	}
+
+	/**
+	 * Returns the rules this mapper was compiled from.
+	 * @return
+	 */
+	public String getRules() {
+		return sRules;
+	}
+
+	public boolean isEmpty() {
+		return iSize == 0;
+	}
+
+	/**
+	 * Whether a path is covered by a rule.
+	 * @param sFile
+	 * @return
+	 */
+	public boolean matches(final String sFile) {
+		return findLongest(sFile) != null;
+	}
+
+	/**
+	 * Resolves a report path through the longest matching rule.
+	 * @param wsRoot the workspace root
+	 * @param sFile the path as written by the CI server
+	 * @return the file, or <code>null</code> if no rule matches or the
+	 *         mapped file does not exist
+	 */
+	public IFile resolve(final IWorkspaceRoot wsRoot, final String sFile) {
+		final Node match = findLongest(sFile);
+		if (match == null) {
+			return null;
+		}
+		final IProject project = wsRoot.getProject(match.sProject);
+		if (!project.isAccessible()) {
+			return null;
+		}
+		final IResource res = project.findMember(new Path(match.sFolder + sFile.substring(match.iDepth)));
+		return (res instanceof IFile) ? (IFile) res : null;
+	}
+
+	private Node findLongest(final String sFile) {
+		Node node = root;
+		Node match = null;
+		for (int i = 0; i < sFile.length() && node != null; i++) {
+			node = node.get(sFile.charAt(i));
+			if (node != null && node.sProject != null) {
+				match = node;
+			}
+		}
+		return match;
+	}
+
+	/**
+	 * A node of the prefix trie; the prefixes of rules end with a '/'.
+	 */
+	private static class Node {
+		private Map<Character, Node> children;
+		private String sProject;
+		private String sFolder;
+		// the length of the prefix ending here
+		private int iDepth;
+
+		Node get(final char c) {
+			return (children == null) ? null : children.get(c);
+		}
+
+		Node getOrCreate(final char c) {
+			if (children == null) {
+				children = new HashMap<Character, Node>();
+			}
+			Node next = children.get(c);
+			if (next == null) {
+				next = new Node();
+				children.put(c, next);
+			}
+			return next;
+		}
+	}
+}
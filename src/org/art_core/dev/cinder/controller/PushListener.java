@@ -0,0 +1,188 @@
+package org.art_core.dev.cinder.controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.art_core.dev.cinder.CinderLog;
+
+/**
+ * A small HTTP endpoint on localhost that the CI server, or a script
+ * standing in for it, calls when a new report is available:
+ * <pre>
+ * POST /notify?source=xml_url_1
+ * POST /notify?url=http://ci/log.xml
+ * X-Cinder-Token: secret
+ * </pre>
+ * The source is given by its id or its configured location, and its
+ * report is then ingested right away from that location; the periodic
+ * checks keep running as a fallback for missed notifications. Any other
+ * local process could call the endpoint, so a request without the
+ * configured token is rejected.
+ * @author Florian Anderiasch
+ *
+ */
+public class PushListener implements Runnable {
+	public static final String PATH = "/notify";
+	public static final int DEFAULT_PORT = 8707;
+	private static final int BACKLOG = 10;
+	private static final int READ_TIMEOUT = 5000;
+	// request line and headers of a notification are tiny
+	private static final int MAX_HEADER_LINES = 100;
+	private static final String TOKEN_HEADER = "x-cinder-token:";
+
+	private final MainController parent;
+	private final ServerSocket server;
+	private final byte[] token;
+
+	/**
+	 * Binds the endpoint to the loopback interface.
+	 * @param mc
+	 * @param iPort the port, 0 for any free one
+	 * @param sToken the token every request must send, not empty
+	 * @throws IOException if the port is taken
+	 */
+	public PushListener(final MainController mc, final int iPort, final String sToken) throws IOException {
+		if (sToken == null || sToken.length() == 0) {
+			throw new IllegalArgumentException("A push token is required");
+		}
+		this.parent = mc;
+		this.token = sToken.getBytes("UTF-8");
+		this.server = new ServerSocket(iPort, BACKLOG, InetAddress.getByName("127.0.0.1"));
+	}
+
+	/**
+	 * Starts accepting notifications on a daemon thread.
+	 */
+	public void start() {
+		final Thread t = new Thread(this, "Cinder push listener");
+		t.setDaemon(true);
+		t.start();
+		CinderLog.logDebug("PL:listening on " + getPort());
+	}
+
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Stops accepting notifications.
+	 */
+	public void dispose() {
+		try {
+			server.close();
+		} catch (IOException e) {
+			CinderLog.logErrorInfo("PL:close", e);
+		}
+	}
+
+	@Override
+	public void run() {
+		while (!server.isClosed()) {
+			Socket socket = null;
+			try {
+				socket = server.accept();
+				handle(socket);
+			} catch (SocketException e) {
+				// closed by dispose
+			} catch (IOException e) {
+				CinderLog.logErrorInfo("PL:accept", e);
+			} finally {
+				close(socket);
+			}
+		}
+	}
+
+	private void handle(final Socket socket) throws IOException {
+		socket.setSoTimeout(READ_TIMEOUT);
+		final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+		final String sRequest = in.readLine();
+		// only the token header is of interest
+		String sToken = null;
+		String sLine = in.readLine();
+		for (int i = 0; sLine != null && sLine.length() > 0 && i < MAX_HEADER_LINES; i++) {
+			if (sLine.toLowerCase().startsWith(TOKEN_HEADER)) {
+				sToken = sLine.substring(TOKEN_HEADER.length()).trim();
+			}
+			sLine = in.readLine();
+		}
+		final String[] parts = (sRequest == null) ? new String[0] : sRequest.split(" ");
+		if (parts.length < 2) {
+			respond(socket, 400, "Bad Request");
+			return;
+		}
+		if (!"POST".equals(parts[0])) {
+			respond(socket, 405, "Method Not Allowed");
+			return;
+		}
+		if (sToken == null || !MessageDigest.isEqual(token, sToken.getBytes("UTF-8"))) {
+			CinderLog.logDebug("PL:rejected a request without a valid token");
+			respond(socket, 403, "Forbidden");
+			return;
+		}
+		final String sTarget = parts[1];
+		final int iQuery = sTarget.indexOf('?');
+		final String sPath = (iQuery < 0) ? sTarget : sTarget.substring(0, iQuery);
+		if (!PATH.equals(sPath)) {
+			respond(socket, 404, "Not Found");
+			return;
+		}
+		final Map<String, String> params = parseQuery((iQuery < 0) ? "" : sTarget.substring(iQuery + 1));
+		final String sSource = params.get("source");
+		final String sUrl = params.get("url");
+		if (sSource == null && sUrl == null) {
+			respond(socket, 400, "Bad Request");
+			return;
+		}
+		CinderLog.logDebug("PL:notify " + sSource + " " + sUrl);
+		if (parent.notifyReport(sSource, sUrl)) {
+			respond(socket, 202, "Accepted");
+		} else {
+			respond(socket, 404, "Not Found");
+		}
+	}
+
+	private static Map<String, String> parseQuery(final String sQuery) throws UnsupportedEncodingException {
+		final Map<String, String> params = new HashMap<String, String>();
+		for (String sPair : sQuery.split("&")) {
+			final int iEquals = sPair.indexOf('=');
+			if (iEquals > 0) {
+				params.put(URLDecoder.decode(sPair.substring(0, iEquals), "UTF-8"),
+						URLDecoder.decode(sPair.substring(iEquals + 1), "UTF-8"));
+			}
+		}
+		return params;
+	}
+
+	private static void respond(final Socket socket, final int iCode, final String sReason) throws IOException {
+		final String sResponse = "HTTP/1.0 " + iCode + " " + sReason + "\r\n"
+			+ "Content-Type: text/plain\r\n"
+			+ "Connection: close\r\n"
+			+ "\r\n"
+			+ sReason + "\r\n";
+		final OutputStream out = socket.getOutputStream();
+		out.write(sResponse.getBytes("US-ASCII"));
+		out.flush();
+	}
+
+	private static void close(final Socket socket) {
+		if (socket == null) {
+			return;
+		}
+		try {
+			socket.close();
+		} catch (IOException e) {
+			CinderLog.logErrorInfo("PL:close", e);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package org.art_core.dev.cinder.controller;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.art_core.dev.cinder.model.ItemSource;
+
+/**
+ * A CI report that is ingested periodically: where to read it from,
+ * how often, and which of its sections to parse.
+ * @author Florian Anderiasch
+ *
+ */
+public class ReportSource {
+	private final String id;
+	private final String location;
+	private final int mode;
+	private final int interval;
+	private final Set<ItemSource> parsers;
+	private final int timeout;
+
+	/**
+	 * Constructor.
+	 * @param sId the unique id, also the partition in the ItemManager
+	 * @param sLocation the file name or URL of the report
+	 * @param iMode FILE_LOCAL, FILE_REMOTE or FILE_WORKSPACE
+	 * @param iInterval the interval in minutes
+	 * @param parsers the sections to parse, empty for all
+	 * @param iTimeout the time budget of one ingestion in seconds, 0 for none
+	 */
+	public ReportSource(final String sId, final String sLocation, final int iMode,
+			final int iInterval, final Set<ItemSource> parsers, final int iTimeout) {
+		this.id = sId;
+		this.location = sLocation;
+		this.mode = iMode;
+		this.interval = iInterval;
+		this.parsers = parsers.isEmpty()
+				? EnumSet.allOf(ItemSource.class) : EnumSet.copyOf(parsers);
+		this.timeout = iTimeout;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	public int getMode() {
+		return mode;
+	}
+
+	/**
+	 * Returns the interval in minutes.
+	 * @return
+	 */
+	public int getInterval() {
+		return interval;
+	}
+
+	public Set<ItemSource> getParsers() {
+		return parsers;
+	}
+
+	/**
+	 * Returns the time budget of one ingestion in seconds.
+	 * @return
+	 */
+	public int getTimeout() {
+		return timeout;
+	}
+
+	@Override
+	public String toString() {
+		return id + ":" + location;
+	}
+}
@@ -0,0 +1,134 @@
+package org.art_core.dev.cinder.controller;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.art_core.dev.cinder.CinderLog;
+import org.art_core.dev.cinder.model.ItemSource;
+import org.art_core.dev.cinder.prefs.CinderPrefPage;
+import org.eclipse.jface.preference.IPreferenceStore;
+
+/**
+ * All report sources that are checked periodically.
+ * Sources are read from numbered preference slots, e.g. xml_url_1,
+ * xml_url_2 and so on; the slots beyond the preference page can be set
+ * through plugin_customization.ini.
+ * @author Florian Anderiasch
+ *
+ */
+public class SourceRegistry {
+	public static final String URL_SLOT = "xml_url";
+	public static final String FILE_SLOT = "xml_file";
+	// number of slots shown on the preference page
+	public static final int PAGE_SLOTS = 3;
+	public static final int DEFAULT_INTERVAL = 5;
+	public static final int DEFAULT_TIMEOUT = 120;
+
+	private final Map<String, ReportSource> sources = new LinkedHashMap<String, ReportSource>();
+
+	/**
+	 * Adds or replaces a source.
+	 * @param src
+	 */
+	public void add(final ReportSource src) {
+		sources.put(src.getId(), src);
+	}
+
+	public void remove(final String sId) {
+		sources.remove(sId);
+	}
+
+	public ReportSource get(final String sId) {
+		return sources.get(sId);
+	}
+
+	/**
+	 * Finds a source by the file name or URL of its report.
+	 * @param sLocation
+	 * @return the source or <code>null</code>
+	 */
+	public ReportSource findByLocation(final String sLocation) {
+		for (ReportSource src : sources.values()) {
+			if (src.getLocation().equals(sLocation)) {
+				return src;
+			}
+		}
+		return null;
+	}
+
+	public Collection<ReportSource> getSources() {
+		return new ArrayList<ReportSource>(sources.values());
+	}
+
+	public int size() {
+		return sources.size();
+	}
+
+	/**
+	 * Replaces all sources with the enabled slots of the preferences.
+	 * @param ipsPref
+	 */
+	public void load(final IPreferenceStore ipsPref) {
+		sources.clear();
+		loadSlots(ipsPref, URL_SLOT, MainController.FILE_REMOTE);
+		loadSlots(ipsPref, FILE_SLOT, MainController.FILE_LOCAL);
+	}
+
+	private void loadSlots(final IPreferenceStore ipsPref, final String sIdentifier, final int iMode) {
+		for (int i = 1; i <= PAGE_SLOTS || ipsPref.contains(getKey(CinderPrefPage.P_STRING, sIdentifier, i)); i++) {
+			final String sId = sIdentifier + "_" + i;
+			final String sLocation = ipsPref.getString(getKey(CinderPrefPage.P_STRING, sIdentifier, i));
+			final boolean bCheck = ipsPref.getBoolean(getKey(CinderPrefPage.P_BOOLEAN, sIdentifier, i) + "_check");
+			final String sTime = getKey(CinderPrefPage.P_INTEGER, sIdentifier, i) + "_time";
+			final int iInterval = ipsPref.contains(sTime) ? ipsPref.getInt(sTime) : DEFAULT_INTERVAL;
+			if (!bCheck || iInterval <= 0 || sLocation.length() == 0) {
+				continue;
+			}
+			final Set<ItemSource> parsers = parseParsers(
+					ipsPref.getString(getKey(CinderPrefPage.P_STRING, sIdentifier, i) + "_parsers"));
+			final String sTimeout = getKey(CinderPrefPage.P_INTEGER, sIdentifier, i) + "_timeout";
+			final int iTimeout = ipsPref.contains(sTimeout) ? ipsPref.getInt(sTimeout) : DEFAULT_TIMEOUT;
+			add(new ReportSource(sId, sLocation, iMode, iInterval, parsers, iTimeout));
+			CinderLog.logDebug("SR:added " + sId);
+		}
+	}
+
+	/**
+	 * Returns the preference key of a slot, e.g. stringPreference_xml_url_1.
+	 * @param sType
+	 * @param sIdentifier
+	 * @param iNumber
+	 * @return
+	 */
+	public static String getKey(final String sType, final String sIdentifier, final int iNumber) {
+		return sType + "_" + sIdentifier + "_" + iNumber;
+	}
+
+	/**
+	 * Parses a comma separated list of sources, e.g. "CHECKSTYLE,PHPMD".
+	 * @param sParsers
+	 * @return the sources, empty for all
+	 */
+	static Set<ItemSource> parseParsers(final String sParsers) {
+		final Set<ItemSource> parsers = EnumSet.noneOf(ItemSource.class);
+		if (sParsers == null) {
+			return parsers;
+		}
+		for (String sName : sParsers.split(",")) {
+			final String sTrimmed = sName.trim();
+			if (sTrimmed.length() == 0) {
+				continue;
+			}
+			try {
+				parsers.add(ItemSource.valueOf(sTrimmed.toUpperCase()));
+			} catch (IllegalArgumentException e) {
+				CinderLog.logInfo("SR:unknown parser " + sTrimmed);
+			}
+		}
+		return parsers;
+	}
+}
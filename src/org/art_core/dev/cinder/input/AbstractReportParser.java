@@ -0,0 +1,101 @@
+package org.art_core.dev.cinder.input;
+
+import java.util.Collection;
+
+import org.art_core.dev.cinder.model.IItem;
+import org.art_core.dev.cinder.model.ItemSource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.w3c.dom.NodeList;
+
+/**
+ * Base class of the parsers for one section of a CruiseControl report.
+ * Progress is reported per top level node of the section.
+ * @author Florian Anderiasch
+ *
+ */
+public abstract class AbstractReportParser {
+	protected NodeList fileNodes;
+	protected final Collection<IItem> items;
+	private IProgressMonitor monitor = new NullProgressMonitor();
+	private SuppressionRules suppressions = SuppressionRules.NONE;
+	private int iSuppressed;
+
+	public AbstractReportParser(NodeList nodes, Collection<IItem> items) {
+		this.fileNodes = nodes;
+		this.items = items;
+	}
+
+	/**
+	 * Sets the monitor for progress and cancellation. The parser calls
+	 * beginTask with the number of top level nodes.
+	 * @param pm
+	 */
+	public void setMonitor(final IProgressMonitor pm) {
+		this.monitor = (pm == null) ? new NullProgressMonitor() : pm;
+	}
+
+	/**
+	 * Sets the rules for findings that are dropped while parsing.
+	 * @param rules
+	 */
+	public void setSuppressions(final SuppressionRules rules) {
+		this.suppressions = (rules == null) ? SuppressionRules.NONE : rules;
+	}
+
+	/**
+	 * Whether a finding is suppressed; to be checked before the item is
+	 * created.
+	 * @param source
+	 * @param sRule
+	 * @param sPath
+	 * @param sMessage the message or <code>null</code>
+	 * @return
+	 */
+	protected boolean isSuppressed(final ItemSource source, final String sRule,
+			final String sPath, final String sMessage) {
+		if (suppressions.isEmpty() || !suppressions.matches(source, sRule, sPath, sMessage)) {
+			return false;
+		}
+		iSuppressed++;
+		return true;
+	}
+
+	/**
+	 * Returns the number of findings dropped by the suppression rules.
+	 * @return
+	 */
+	public int getSuppressedCount() {
+		return iSuppressed;
+	}
+
+	/**
+	 * Parses the section, adding the findings to the collection.
+	 * @throws OperationCanceledException if the monitor was canceled
+	 */
+	public abstract void parse();
+
+	/**
+	 * Starts the progress of the section.
+	 * @param sName
+	 */
+	protected void beginTask(final String sName) {
+		monitor.beginTask(sName, fileNodes.getLength());
+	}
+
+	/**
+	 * Reports one top level node as done and stops if canceled.
+	 * @throws OperationCanceledException
+	 */
+	protected void worked() {
+		if (monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+		monitor.worked(1);
+	}
+
+	protected void done() {
+		monitor.done();
+	}
+}
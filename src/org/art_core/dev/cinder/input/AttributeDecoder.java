@@ -0,0 +1,132 @@
+package org.art_core.dev.cinder.input;
+
+import org.art_core.dev.cinder.model.AbstractCinderItem;
+import org.art_core.dev.cinder.model.ItemType;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Decodes the attributes of report elements for the parsers. Numbers are
+ * read from the characters without boxing or exceptions, severities are
+ * looked up in tables built once.
+ * @author Florian Anderiasch
+ *
+ */
+final class AttributeDecoder {
+	/** PHPMD priorities 0..5, anything else is info */
+	private static final ItemType[] PRIORITIES = {
+		ItemType.TASK_INFO,
+		ItemType.TASK_WARN,
+		ItemType.TASK_WARN,
+		ItemType.TASK_WARN,
+		ItemType.TASK_ERROR,
+		ItemType.TASK_ERROR,
+	};
+
+	private AttributeDecoder() {}
+
+	/**
+	 * Reads an int attribute.
+	 * @param el the element
+	 * @param sName the attribute
+	 * @param iDefault the value if missing or malformed
+	 * @return the value
+	 */
+	static int getInt(final Element el, final String sName, final int iDefault) {
+		return parseInt(el.getAttribute(sName), iDefault);
+	}
+
+	/**
+	 * Parses a decimal int with an optional sign.
+	 * @param s the characters
+	 * @param iDefault the value if empty, malformed or out of range
+	 * @return the value
+	 */
+	static int parseInt(final String s, final int iDefault) {
+		final int iLen = s.length();
+		if (iLen == 0) {
+			return iDefault;
+		}
+		int i = 0;
+		final char cFirst = s.charAt(0);
+		final boolean bNegative = (cFirst == '-');
+		if (bNegative || cFirst == '+') {
+			if (iLen == 1) {
+				return iDefault;
+			}
+			i = 1;
+		}
+		final long lLimit = bNegative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+		long lValue = 0;
+		for (; i < iLen; i++) {
+			final int iDigit = s.charAt(i) - '0';
+			if (iDigit < 0 || iDigit > 9) {
+				return iDefault;
+			}
+			lValue = lValue * 10 + iDigit;
+			if (lValue > lLimit) {
+				return iDefault;
+			}
+		}
+		return (int) (bNegative ? -lValue : lValue);
+	}
+
+	/**
+	 * Maps a severity attribute like "error" to its type.
+	 * @param el the element
+	 * @param sName the attribute
+	 * @return the type, the default type if unknown
+	 */
+	static ItemType getSeverity(final Element el, final String sName) {
+		return getSeverity(el.getAttribute(sName));
+	}
+
+	/**
+	 * Maps a severity like "error" to its type.
+	 * @param sValue the attribute value
+	 * @return the type, the default type if unknown
+	 */
+	static ItemType getSeverity(final String sValue) {
+		return AbstractCinderItem.chooseType(sValue);
+	}
+
+	/**
+	 * Maps a numeric priority attribute to its type.
+	 * @param el the element
+	 * @param sName the attribute
+	 * @return the type, info if unknown
+	 */
+	static ItemType getPriority(final Element el, final String sName) {
+		return getPriority(el.getAttribute(sName));
+	}
+
+	/**
+	 * Maps a numeric priority to its type.
+	 * @param sValue the attribute value
+	 * @return the type, info if unknown
+	 */
+	static ItemType getPriority(final String sValue) {
+		final int iPriority = parseInt(sValue, -1);
+		if (iPriority < 0 || iPriority >= PRIORITIES.length) {
+			return ItemType.TASK_INFO;
+		}
+		return PRIORITIES[iPriority];
+	}
+
+	/**
+	 * Returns the trimmed text of an element. The common case of a single
+	 * text child is read directly instead of concatenating the subtree.
+	 * @param el the element
+	 * @return the text
+	 */
+	static String getText(final Element el) {
+		final Node first = el.getFirstChild();
+		if (first == null) {
+			return "";
+		}
+		if (first.getNextSibling() == null && first.getNodeType() == Node.TEXT_NODE) {
+			return first.getNodeValue().trim();
+		}
+		return el.getTextContent().trim();
+	}
+}
@@ -0,0 +1,78 @@
+package org.art_core.dev.cinder.input;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.art_core.dev.cinder.model.Fingerprint;
+import org.art_core.dev.cinder.model.IItem;
+
+/**
+ * The collection the parsers add their findings to in streaming mode.
+ * Findings get their fingerprint on the way in and are published to a
+ * listener every CHUNK_SIZE items or CHUNK_TIME msec, whatever comes
+ * first.
+ * @author Florian Anderiasch
+ *
+ */
+public class ChunkingCollection extends AbstractCollection<IItem> {
+	public static final int CHUNK_SIZE = 1000;
+	public static final long CHUNK_TIME = 100;
+
+	private final Collection<IItem> backing;
+	private final IChunkListener listener;
+	private final Fingerprint.Assigner assigner = new Fingerprint.Assigner();
+	private List<IItem> pending = new ArrayList<IItem>();
+	private long lLastFlush = System.currentTimeMillis();
+
+	public ChunkingCollection(final Collection<IItem> backing, final IChunkListener listener) {
+		this.backing = backing;
+		this.listener = listener;
+	}
+
+	@Override
+	public boolean add(final IItem item) {
+		assigner.assign(item);
+		backing.add(item);
+		pending.add(item);
+		if (pending.size() >= CHUNK_SIZE
+				|| System.currentTimeMillis() - lLastFlush >= CHUNK_TIME) {
+			flush();
+		}
+		return true;
+	}
+
+	/**
+	 * Publishes the findings not published yet.
+	 */
+	public void flush() {
+		lLastFlush = System.currentTimeMillis();
+		if (pending.isEmpty()) {
+			return;
+		}
+		final List<IItem> chunk = pending;
+		pending = new ArrayList<IItem>();
+		listener.chunkParsed(chunk);
+	}
+
+	/**
+	 * Drops all findings, published or not, and tells the listener.
+	 */
+	public void discard() {
+		pending = new ArrayList<IItem>();
+		backing.clear();
+		listener.chunksDiscarded();
+	}
+
+	@Override
+	public Iterator<IItem> iterator() {
+		return backing.iterator();
+	}
+
+	@Override
+	public int size() {
+		return backing.size();
+	}
+}
@@ -0,0 +1,80 @@
+package org.art_core.dev.cinder.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The compression of a report, told by its first bytes.
+ * @author Florian Anderiasch
+ *
+ */
+enum Compression {
+	NONE(),
+	GZIP(0x1f, 0x8b),
+	ZIP(0x50, 0x4b, 0x03, 0x04),
+	ZSTD(0x28, 0xb5, 0x2f, 0xfd),
+	;
+
+	/** the longest magic number */
+	private static final int MAGIC_LENGTH = 4;
+
+	private final int[] magic;
+
+	Compression(final int... magic) {
+		this.magic = magic;
+	}
+
+	/**
+	 * Looks at the start of a stream without consuming it.
+	 * @param in a stream supporting mark
+	 * @return the compression, NONE if unknown
+	 * @throws IOException
+	 */
+	static Compression detect(final InputStream in) throws IOException {
+		final int[] head = new int[MAGIC_LENGTH];
+		in.mark(MAGIC_LENGTH);
+		try {
+			for (int i = 0; i < MAGIC_LENGTH; i++) {
+				head[i] = in.read();
+			}
+		} finally {
+			in.reset();
+		}
+		return detect(head);
+	}
+
+	/**
+	 * Looks at the start of a buffer.
+	 * @param buf
+	 * @return the compression, NONE if unknown
+	 */
+	static Compression detect(final ByteBuffer buf) {
+		final int[] head = new int[MAGIC_LENGTH];
+		for (int i = 0; i < MAGIC_LENGTH; i++) {
+			head[i] = (i < buf.limit()) ? (buf.get(i) & 0xff) : -1;
+		}
+		return detect(head);
+	}
+
+	private static Compression detect(final int[] head) {
+		for (Compression c : values()) {
+			if (c.matches(head)) {
+				return c;
+			}
+		}
+		return NONE;
+	}
+
+	private boolean matches(final int[] head) {
+		if (magic.length == 0) {
+			return false;
+		}
+		for (int i = 0; i < magic.length; i++) {
+			if (head[i] != magic[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
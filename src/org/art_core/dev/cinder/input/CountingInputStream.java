@@ -0,0 +1,51 @@
+package org.art_core.dev.cinder.input;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that counts the bytes read through it.
+ * @author Florian Anderiasch
+ *
+ */
+public class CountingInputStream extends FilterInputStream {
+	private long lCount;
+
+	public CountingInputStream(final InputStream in) {
+		super(in);
+	}
+
+	@Override
+	public int read() throws IOException {
+		final int iByte = super.read();
+		if (iByte >= 0) {
+			lCount++;
+		}
+		return iByte;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+		final int iRead = super.read(b, off, len);
+		if (iRead > 0) {
+			lCount += iRead;
+		}
+		return iRead;
+	}
+
+	@Override
+	public long skip(final long n) throws IOException {
+		final long lSkipped = super.skip(n);
+		lCount += lSkipped;
+		return lSkipped;
+	}
+
+	/**
+	 * Returns the number of bytes read so far.
+	 * @return
+	 */
+	public long getCount() {
+		return lCount;
+	}
+}
@@ -5,6 +5,7 @@ import java.util.Collection;
 import org.art_core.dev.cinder.CinderLog;
 import org.art_core.dev.cinder.model.IItem;
 import org.art_core.dev.cinder.model.ItemSource;
+import org.art_core.dev.cinder.model.ItemType;
 import org.art_core.dev.cinder.model.PropertiesItem;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -15,30 +16,33 @@ import org.w3c.dom.NodeList;
  * @author Florian Anderiasch
  *
  */
-public class CruiseControlCheckstyleParser {
-	private NodeList fileNodes;
-	private final Collection<IItem> items;
+public class CruiseControlCheckstyleParser extends AbstractReportParser {
 	
 	public CruiseControlCheckstyleParser(NodeList nodes, Collection<IItem> items) {
-		this.fileNodes = nodes;
-		this.items = items;
+		super(nodes, items);
 	}
 	
 	public void parse() {
 		PropertiesItem pItem;
 		Element fileElement, error;
-		String eSeverity, eMessage, ePattern, sTargetFileName;
+		String eMessage, ePattern, sTargetFileName;
+		ItemType eType;
 		int eLine, eColumn;
 		NodeList errorNodes;
+		final boolean bDebug = CinderLog.isDebug();
 		
 		// handle all <file name=""> sections
+		beginTask("Checkstyle");
 		for (int fIndex = 0; fIndex < fileNodes.getLength(); fIndex++) {
+			worked();
 			// ignore whitespace
 			final int iNodeType = fileNodes.item(fIndex).getNodeType();
 			if (iNodeType == Node.ELEMENT_NODE) {
 				fileElement = (Element) fileNodes.item(fIndex);
 				sTargetFileName = fileElement.getAttribute("name");
-				CinderLog.logDebug("CCCsP::read:" + sTargetFileName);
+				if (bDebug) {
+					CinderLog.logDebug("CCCsP::read:" + sTargetFileName);
+				}
 				errorNodes = fileElement.getChildNodes();
 				
 				// handle all <error line="" column="" severity=""
@@ -48,16 +52,21 @@ public class CruiseControlCheckstyleParser {
 					if (errorNodes.item(eIndex).getNodeType() == Node.ELEMENT_NODE) {
 						error = (Element) errorNodes.item(eIndex);
 
-						eLine = Integer.valueOf(error.getAttribute("line"));
-						eColumn = Integer.valueOf(error.getAttribute("column"));
-						eSeverity = error.getAttribute("severity");
 						eMessage = error.getAttribute("message");
 						ePattern = error.getAttribute("source");
-						CinderLog.logDebug("CCCSP:" + eLine + ":" + eColumn + ":" + eSeverity);
+						if (isSuppressed(ItemSource.CHECKSTYLE, ePattern, sTargetFileName, eMessage)) {
+							continue;
+						}
+						eLine = AttributeDecoder.getInt(error, "line", PropertiesItem.DEFAULT_LINE);
+						eColumn = AttributeDecoder.getInt(error, "column", PropertiesItem.DEFAULT_OFFSET);
+						eType = AttributeDecoder.getSeverity(error, "severity");
+						if (bDebug) {
+							CinderLog.logDebug("CCCSP:" + eLine + ":" + eColumn + ":" + eType.getId());
+						}
 
 						pItem = new PropertiesItem(ePattern,
 									sTargetFileName, 
-									PropertiesItem.chooseType(eSeverity), 
+									eType, 
 									eLine, 
 									eColumn);
 						pItem.setMessage(eMessage);
@@ -67,5 +76,6 @@ public class CruiseControlCheckstyleParser {
 				}
 			}
 		}
+		done();
 	}
 }
@@ -15,25 +15,25 @@ import org.w3c.dom.NodeList;
  * @author Florian Anderiasch
  *
  */
-public class CruiseControlCpdParser {
-	private NodeList fileNodes;
-	private final Collection<IItem> items;
+public class CruiseControlCpdParser extends AbstractReportParser {
 	
 	public CruiseControlCpdParser(NodeList nodes, Collection<IItem> items) {
-		this.fileNodes = nodes;
-		this.items = items;
+		super(nodes, items);
 	}
 	
 	public void parse() {
 		DuplicateItem[] dItems;
 		Element fileElement, error;
-		String eSeverity, eMessage, ePattern, sTargetFileName;
-		int eLine, eColumn, eLen;
+		String sTargetFileName;
+		int eLine, eLen;
 		NodeList errorNodes;
+		final boolean bDebug = CinderLog.isDebug();
 		//HashMap<String, Object>[] sAlternatives;
 		
 		// handle all <duplication lines="" tokens=""> sections
+		beginTask("CPD");
 		for (int fIndex = 0; fIndex < fileNodes.getLength(); fIndex++) {
+			worked();
 			// ignore whitespace
 			final int iNodeType = fileNodes.item(fIndex).getNodeType();
 			if (iNodeType == Node.ELEMENT_NODE) {
@@ -48,31 +48,48 @@ public class CruiseControlCpdParser {
 					if (errorNodes.item(eIndex).getNodeType() == Node.ELEMENT_NODE) {
 						error = (Element) errorNodes.item(eIndex);
 
-						eLine = Integer.valueOf(error.getAttribute("line"));
+						eLine = AttributeDecoder.getInt(error, "line", DuplicateItem.DEFAULT_LINE);
 						sTargetFileName = error.getAttribute("path");
 						
-						CinderLog.logDebug("CCCpdP:" + sTargetFileName + ":" + eLine);
+						if (bDebug) {
+							CinderLog.logDebug("CCCpdP:" + sTargetFileName + ":" + eLine);
+						}
 
 						dItems[eIndex] = new DuplicateItem("CPD_Finding", sTargetFileName, eLine);
 						dItems[eIndex].setSource(ItemSource.CPD);
 						
 					}
 				}
-				CinderLog.logDebug("CCCpdP:_foo: " + eLen);
+				if (bDebug) {
+					CinderLog.logDebug("CCCpdP:_foo: " + eLen);
+				}
+				linkCopies(dItems);
 				for (int eIndex = 0; eIndex < eLen; eIndex++) {
-					for (int eIndex2 = 0; eIndex2 < eLen; eIndex2++) {
-						if (eIndex2 != eIndex) {
-							sTargetFileName = dItems[eIndex2].getLocation();
-							eLine = dItems[eIndex2].getLine();
-							dItems[eIndex].addAlternative(sTargetFileName, eLine);
-							CinderLog.logDebug("CCCpdP:_adding alt: " + sTargetFileName + ":" + eLine);
-						}
+					// the other copies still list a suppressed one as alternative
+					if (!isSuppressed(ItemSource.CPD, dItems[eIndex].getName(),
+							dItems[eIndex].getLocation(), dItems[eIndex].getMessage())) {
+						items.add(dItems[eIndex]);
 					}
-					dItems[eIndex].setMessage(dItems[eIndex].getAlternatives());
-					items.add(dItems[eIndex]);
 				}
 				
 			}
 		}
+		done();
+	}
+
+	/**
+	 * Lists the other copies of a duplication as alternatives of each
+	 * copy, which also make up its message.
+	 * @param dItems the copies
+	 */
+	static void linkCopies(final DuplicateItem[] dItems) {
+		for (int eIndex = 0; eIndex < dItems.length; eIndex++) {
+			for (int eIndex2 = 0; eIndex2 < dItems.length; eIndex2++) {
+				if (eIndex2 != eIndex) {
+					dItems[eIndex].addAlternative(dItems[eIndex2].getLocation(), dItems[eIndex2].getLine());
+				}
+			}
+			dItems[eIndex].setMessage(dItems[eIndex].getAlternatives());
+		}
 	}
 }
@@ -5,6 +5,7 @@ import java.util.Collection;
 import org.art_core.dev.cinder.CinderLog;
 import org.art_core.dev.cinder.model.IItem;
 import org.art_core.dev.cinder.model.ItemSource;
+import org.art_core.dev.cinder.model.ItemType;
 import org.art_core.dev.cinder.model.PropertiesItem;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -15,31 +16,34 @@ import org.w3c.dom.NodeList;
  * @author Florian Anderiasch
  *
  */
-public class CruiseControlPMDParser {
-	private NodeList fileNodes;
-	private final Collection<IItem> items;
+public class CruiseControlPMDParser extends AbstractReportParser {
 	
 	public CruiseControlPMDParser(NodeList nodes, Collection<IItem> items) {
-		this.fileNodes = nodes;
-		this.items = items;
+		super(nodes, items);
 	}
 	
-	public void parse() throws Exception {
+	public void parse() {
 		PropertiesItem pItem;
 		Element fileElement, error;
-		String eSeverity, eMessage, ePattern, sTargetFileName; 
+		String eMessage, ePattern, sTargetFileName; 
 		String eExternalInfoUrl, eRuleSet, ePackage, eClass;
+		ItemType eType;
 		int eBeginLine, eEndLine;
 		NodeList violationNodes;
+		final boolean bDebug = CinderLog.isDebug();
 		
 		// handle all <file name=""> sections
+		beginTask("PHPMD");
 		for (int fIndex = 0; fIndex < fileNodes.getLength(); fIndex++) {
+			worked();
 			// ignore whitespace
 			final int iNodeType = fileNodes.item(fIndex).getNodeType();
 			if (iNodeType == Node.ELEMENT_NODE) {
 				fileElement = (Element) fileNodes.item(fIndex);
 				sTargetFileName = fileElement.getAttribute("name");
-				CinderLog.logDebug("CCPMP::read:" + sTargetFileName);
+				if (bDebug) {
+					CinderLog.logDebug("CCPMP::read:" + sTargetFileName);
+				}
 				violationNodes = fileElement.getChildNodes();
 				
 				// handle all <violation beginline="" endline="" priority=""
@@ -49,38 +53,28 @@ public class CruiseControlPMDParser {
 					if (violationNodes.item(eIndex).getNodeType() == Node.ELEMENT_NODE) {
 						error = (Element) violationNodes.item(eIndex);
 
-						eBeginLine = Integer.valueOf(error.getAttribute("beginline"));
-						eEndLine = Integer.valueOf(error.getAttribute("endline"));
 						ePattern = error.getAttribute("rule");
-						eSeverity = error.getAttribute("priority");
-						
-						switch (Integer.parseInt(eSeverity)) {
-						case 5:
-						case 4:
-							eSeverity = "error";
-							break;
-						case 3:
-						case 2:
-						case 1:
-							eSeverity = "warning";
-							break;
-
-						default:
-							eSeverity = "info";
-							break;
+						eMessage = AttributeDecoder.getText(error);
+						if (isSuppressed(ItemSource.PHPMD, ePattern, sTargetFileName, eMessage)) {
+							continue;
 						}
+						eBeginLine = AttributeDecoder.getInt(error, "beginline", PropertiesItem.DEFAULT_LINE);
+						eEndLine = AttributeDecoder.getInt(error, "endline", PropertiesItem.DEFAULT_OFFSET);
+						// 5 and 4 are errors, 3 to 1 warnings
+						eType = AttributeDecoder.getPriority(error, "priority");
 						
 						eRuleSet = error.getAttribute("ruleset");
 						ePackage = error.getAttribute("package");
 						eExternalInfoUrl = error.getAttribute("externalInfoUrl");
 						eClass = error.getAttribute("class");
-						eMessage = error.getTextContent().trim();
 						
-						CinderLog.logDebug("CCPmdP:" + eMessage + "_" + eBeginLine + ":" + eEndLine + ":" + eSeverity);
+						if (bDebug) {
+							CinderLog.logDebug("CCPmdP:" + eMessage + "_" + eBeginLine + ":" + eEndLine + ":" + eType.getId());
+						}
 
 						pItem = new PropertiesItem(ePattern,
 									sTargetFileName, 
-									PropertiesItem.chooseType(eSeverity), 
+									eType, 
 									eBeginLine, 
 									eEndLine);
 						pItem.setMessage(eMessage);
@@ -94,5 +88,6 @@ public class CruiseControlPMDParser {
 				}
 			}
 		}
+		done();
 	}
 }
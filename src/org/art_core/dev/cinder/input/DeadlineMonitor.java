@@ -0,0 +1,52 @@
+package org.art_core.dev.cinder.input;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
+
+/**
+ * A progress monitor that reports itself as canceled once its time
+ * budget is used up, so every cancellation check also enforces the
+ * timeout.
+ * @author Florian Anderiasch
+ *
+ */
+public class DeadlineMonitor extends ProgressMonitorWrapper {
+	private final long lDeadline;
+	private volatile boolean bTimedOut;
+
+	/**
+	 * Constructor.
+	 * @param monitor the wrapped monitor
+	 * @param lTimeout the budget in msec, 0 for none
+	 */
+	public DeadlineMonitor(final IProgressMonitor monitor, final long lTimeout) {
+		super(monitor);
+		this.lDeadline = (lTimeout > 0) ? System.currentTimeMillis() + lTimeout : Long.MAX_VALUE;
+	}
+
+	@Override
+	public boolean isCanceled() {
+		if (!bTimedOut && System.currentTimeMillis() > lDeadline) {
+			bTimedOut = true;
+			setCanceled(true);
+		}
+		return super.isCanceled();
+	}
+
+	/**
+	 * Whether the budget was used up.
+	 * @return
+	 */
+	public boolean isTimedOut() {
+		return bTimedOut;
+	}
+
+	/**
+	 * Returns the msec left of the budget, at least 1.
+	 * @return
+	 */
+	public int getRemaining() {
+		final long lLeft = lDeadline - System.currentTimeMillis();
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, lLeft));
+	}
+}
@@ -0,0 +1,140 @@
+package org.art_core.dev.cinder.input;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.art_core.dev.cinder.CinderLog;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+
+/**
+ * Shared pool of DocumentBuilders for the reports. The factory is looked
+ * up and configured once: no validation, no namespaces, no external DTDs
+ * or entities, so a DOCTYPE in a CruiseControl log never causes a
+ * network lookup. Builders are reset and reused across polls and sources.
+ * The pull parsers of the streaming mode come from one shared
+ * XMLInputFactory with the same restrictions; once configured, it is
+ * safe to use from several threads.
+ * @author Florian Anderiasch
+ *
+ */
+final class DocumentBuilderPool {
+	/** idle builders kept, enough for every ingestion worker */
+	static final int MAX_IDLE = 8;
+
+	private static final String LOAD_EXTERNAL_DTD =
+		"http://apache.org/xml/features/nonvalidating/load-external-dtd";
+	private static final String EXTERNAL_GENERAL_ENTITIES =
+		"http://xml.org/sax/features/external-general-entities";
+	private static final String EXTERNAL_PARAMETER_ENTITIES =
+		"http://xml.org/sax/features/external-parameter-entities";
+
+	private static final DocumentBuilderPool pool = new DocumentBuilderPool();
+
+	/** resolves every external entity to nothing */
+	private static final EntityResolver NO_ENTITIES = new EntityResolver() {
+		@Override
+		public InputSource resolveEntity(final String sPublicId, final String sSystemId) {
+			return new InputSource(new StringReader(""));
+		}
+	};
+
+	private final DocumentBuilderFactory factory;
+	private final XMLInputFactory streamFactory;
+	private final Queue<DocumentBuilder> idle = new ConcurrentLinkedQueue<DocumentBuilder>();
+	private final AtomicInteger iIdle = new AtomicInteger();
+
+	private DocumentBuilderPool() {
+		factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(false);
+		factory.setValidating(false);
+		factory.setXIncludeAware(false);
+		factory.setExpandEntityReferences(false);
+		factory.setCoalescing(true);
+		factory.setIgnoringComments(true);
+		setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+		setFeature(LOAD_EXTERNAL_DTD, false);
+		setFeature(EXTERNAL_GENERAL_ENTITIES, false);
+		setFeature(EXTERNAL_PARAMETER_ENTITIES, false);
+
+		streamFactory = XMLInputFactory.newInstance();
+		streamFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		streamFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		streamFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+	}
+
+	public static DocumentBuilderPool getPool() {
+		return pool;
+	}
+
+	private void setFeature(final String sFeature, final boolean bValue) {
+		try {
+			factory.setFeature(sFeature, bValue);
+		} catch (ParserConfigurationException e) {
+			// not every parser knows every feature, the resolver still applies
+			CinderLog.logErrorInfo("DBP:feature " + sFeature, e);
+		}
+	}
+
+	/**
+	 * Creates a pull parser for a report.
+	 * @param sSystemId the location of the report
+	 * @param in the uncompressed report
+	 * @return the parser, to be closed after use
+	 * @throws XMLStreamException
+	 */
+	public XMLStreamReader createStreamReader(final String sSystemId, final InputStream in)
+			throws XMLStreamException {
+		return streamFactory.createXMLStreamReader(sSystemId, in);
+	}
+
+	/**
+	 * Takes a builder from the pool or creates one.
+	 * Must be given back with release().
+	 * @return the builder
+	 * @throws ParserConfigurationException
+	 */
+	DocumentBuilder borrow() throws ParserConfigurationException {
+		final DocumentBuilder builder = idle.poll();
+		if (builder != null) {
+			iIdle.decrementAndGet();
+			return builder;
+		}
+		final DocumentBuilder created;
+		// the factory itself is not thread safe
+		synchronized (factory) {
+			created = factory.newDocumentBuilder();
+		}
+		created.setEntityResolver(NO_ENTITIES);
+		return created;
+	}
+
+	/**
+	 * Gives a builder back for reuse.
+	 * @param builder the builder or <code>null</code>
+	 */
+	void release(final DocumentBuilder builder) {
+		if (builder == null) {
+			return;
+		}
+		builder.reset();
+		builder.setEntityResolver(NO_ENTITIES);
+		builder.setErrorHandler(null);
+		if (iIdle.incrementAndGet() <= MAX_IDLE) {
+			idle.offer(builder);
+		} else {
+			iIdle.decrementAndGet();
+		}
+	}
+}
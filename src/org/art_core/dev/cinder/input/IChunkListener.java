@@ -0,0 +1,24 @@
+package org.art_core.dev.cinder.input;
+
+import java.util.List;
+
+import org.art_core.dev.cinder.model.IItem;
+
+/**
+ * Receives the findings of a report in chunks while it is parsed.
+ */
+public interface IChunkListener {
+
+	/**
+	 * Called on the parsing thread with the next findings; they already
+	 * have their final fingerprint.
+	 * @param chunk the findings parsed since the last chunk
+	 */
+	void chunkParsed(List<IItem> chunk);
+
+	/**
+	 * Called on the parsing thread when the chunks published so far are
+	 * void, because the report is read again in another way.
+	 */
+	void chunksDiscarded();
+}
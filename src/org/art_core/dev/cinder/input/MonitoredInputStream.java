@@ -0,0 +1,54 @@
+package org.art_core.dev.cinder.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * A counting input stream that reports progress in KB and stops reading
+ * once its monitor is canceled.
+ * @author Florian Anderiasch
+ *
+ */
+public class MonitoredInputStream extends CountingInputStream {
+	private static final int KB = 1024;
+	private final IProgressMonitor monitor;
+	private long lReported;
+
+	public MonitoredInputStream(final InputStream in, final IProgressMonitor monitor) {
+		super(in);
+		this.monitor = monitor;
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkCanceled();
+		final int iByte = super.read();
+		report();
+		return iByte;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+		checkCanceled();
+		final int iRead = super.read(b, off, len);
+		report();
+		return iRead;
+	}
+
+	private void checkCanceled() throws InterruptedIOException {
+		if (monitor.isCanceled()) {
+			throw new InterruptedIOException("canceled");
+		}
+	}
+
+	private void report() {
+		final long lKb = getCount() / KB;
+		if (lKb > lReported) {
+			monitor.worked((int) (lKb - lReported));
+			lReported = lKb;
+		}
+	}
+}
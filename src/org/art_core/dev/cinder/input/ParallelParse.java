@@ -0,0 +1,148 @@
+package org.art_core.dev.cinder.input;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.art_core.dev.cinder.model.IItem;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Parses parts of one report on several threads and hands the findings
+ * back in the order the parts were submitted. All parts share the
+ * cancellation of the reading job. If one part fails, the whole read
+ * fails, as a partial report must not replace a complete one. Must be
+ * shut down after use.
+ * @author Florian Anderiasch
+ *
+ */
+final class ParallelParse {
+	/** how often a waiting reader checks for cancellation, in msec */
+	private static final long POLL_INTERVAL = 100;
+
+	private final IProgressMonitor monitor;
+	private final ExecutorService pool;
+	// the parts not drained yet, in submission order
+	private final Queue<Future<List<IItem>>> results = new LinkedList<Future<List<IItem>>>();
+
+	/**
+	 * Constructor.
+	 * @param monitor the monitor of the reading job
+	 * @param iParts the number of parts if known, else 0
+	 */
+	ParallelParse(final IProgressMonitor monitor, final int iParts) {
+		this.monitor = monitor;
+		int iThreads = Runtime.getRuntime().availableProcessors();
+		if (iParts > 0) {
+			iThreads = Math.min(iParts, iThreads);
+		}
+		pool = Executors.newFixedThreadPool(iThreads, new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread t = new Thread(r, "Cinder parse");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Returns a monitor for the parsers of a part, canceled together
+	 * with the reading job.
+	 * @return
+	 */
+	IProgressMonitor newPartMonitor() {
+		return new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+	}
+
+	/**
+	 * Starts parsing a part.
+	 * @param part returns the findings of the part
+	 */
+	void submit(final Callable<List<IItem>> part) {
+		results.add(pool.submit(part));
+	}
+
+	/**
+	 * Adds the findings of all parts to the collection in submission
+	 * order, as the parts complete.
+	 * @param target
+	 * @param progress one unit per part
+	 * @throws IOException if a part failed
+	 * @throws OperationCanceledException
+	 */
+	void drainTo(final Collection<IItem> target, final SubMonitor progress) throws IOException {
+		drainTo(target, progress, 0);
+	}
+
+	/**
+	 * Adds the findings of the oldest parts to the collection until at
+	 * most iPending parts are left, so a reader can bound the parts in
+	 * memory.
+	 * @param target
+	 * @param progress one unit per part
+	 * @param iPending the number of parts that may stay undrained
+	 * @throws IOException if a part failed
+	 * @throws OperationCanceledException
+	 */
+	void drainTo(final Collection<IItem> target, final SubMonitor progress, final int iPending)
+			throws IOException {
+		progress.setWorkRemaining(results.size());
+		while (results.size() > iPending) {
+			target.addAll(await(results.remove()));
+			progress.worked(1);
+		}
+	}
+
+	/**
+	 * Stops all threads, canceling the parts not done yet.
+	 */
+	void shutdown() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Waits for a part, checking for cancellation meanwhile.
+	 * @return the findings
+	 * @throws IOException if the part failed
+	 * @throws OperationCanceledException
+	 */
+	private List<IItem> await(final Future<List<IItem>> result) throws IOException {
+		while (true) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			try {
+				return result.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof OperationCanceledException) {
+					throw (OperationCanceledException) e.getCause();
+				}
+				throw new IOException("Could not parse a part of the report", e.getCause());
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package org.art_core.dev.cinder.input;
+
+import java.util.Collection;
+
+import org.art_core.dev.cinder.model.IItem;
+import org.art_core.dev.cinder.model.ItemSource;
+import org.w3c.dom.NodeList;
+
+/**
+ * The sections of a CruiseControl report, in the order they are parsed.
+ * @author Florian Anderiasch
+ *
+ */
+enum ReportSection {
+	PADAWAN("padawan", "file", ItemSource.PADAWAN) {
+		AbstractReportParser newParser(final NodeList nodes, final Collection<IItem> items) {
+			return new CruiseControlPadawanParser(nodes, items);
+		}
+	},
+	PHPMD("pmd", "file", ItemSource.PHPMD) {
+		AbstractReportParser newParser(final NodeList nodes, final Collection<IItem> items) {
+			return new CruiseControlPMDParser(nodes, items);
+		}
+	},
+	CPD("pmd-cpd", "duplication", ItemSource.CPD) {
+		AbstractReportParser newParser(final NodeList nodes, final Collection<IItem> items) {
+			return new CruiseControlCpdParser(nodes, items);
+		}
+	},
+	CHECKSTYLE("checkstyle", "file", ItemSource.CHECKSTYLE) {
+		AbstractReportParser newParser(final NodeList nodes, final Collection<IItem> items) {
+			return new CruiseControlCheckstyleParser(nodes, items);
+		}
+	},
+	;
+
+	private final String sTag;
+	private final String sRecord;
+	private final ItemSource source;
+
+	ReportSection(final String sTag, final String sRecord, final ItemSource source) {
+		this.sTag = sTag;
+		this.sRecord = sRecord;
+		this.source = source;
+	}
+
+	/**
+	 * The element holding the section.
+	 * @return
+	 */
+	String getTag() {
+		return sTag;
+	}
+
+	/**
+	 * The top level element within the section, one per file or duplication.
+	 * @return
+	 */
+	String getRecord() {
+		return sRecord;
+	}
+
+	ItemSource getSource() {
+		return source;
+	}
+
+	/**
+	 * Creates the parser for the top level nodes of this section.
+	 * @param nodes
+	 * @param items
+	 * @return
+	 */
+	abstract AbstractReportParser newParser(NodeList nodes, Collection<IItem> items);
+}
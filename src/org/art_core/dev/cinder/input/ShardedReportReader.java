@@ -0,0 +1,319 @@
+package org.art_core.dev.cinder.input;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import javax.xml.parsers.DocumentBuilder;
+
+import org.art_core.dev.cinder.CinderLog;
+import org.art_core.dev.cinder.model.IItem;
+import org.art_core.dev.cinder.model.ItemSource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.w3c.dom.Document;
+
+/**
+ * Reads a large local report on several threads. A pre-scan of the mapped
+ * file finds the sections and cuts them into shards of about SHARD_SIZE
+ * bytes at the end of a top level element. Every shard is parsed into its
+ * own small document by the usual section parser, and the results are
+ * merged in document order, so the findings are the same as for a
+ * single-threaded read.
+ * <p>
+ * The cuts are found by searching for the closing tags, so the report
+ * must be in an ASCII compatible encoding and must not contain those
+ * tags in comments or CDATA, nor an internal DTD subset, as only the XML
+ * declaration is copied in front of every shard. Such a report makes a
+ * shard fail, and the caller then reads it as one document.
+ * @author Florian Anderiasch
+ *
+ */
+final class ShardedReportReader {
+	/** reports from this size on are sharded */
+	static final long THRESHOLD = 32L << 20;
+	/** the approximate size of a shard in bytes */
+	static final int SHARD_SIZE = 4 << 20;
+
+	private final Set<ItemSource> parsers;
+	private final SuppressionRules suppressions;
+	private final IProgressMonitor monitor;
+	private long lScanNanos;
+
+	/**
+	 * Constructor.
+	 * @param parsers the sections to read
+	 * @param suppressions the findings to drop
+	 * @param monitor the monitor checked for cancellation by every shard
+	 */
+	ShardedReportReader(final Set<ItemSource> parsers, final SuppressionRules suppressions,
+			final IProgressMonitor monitor) {
+		this.parsers = parsers;
+		this.suppressions = suppressions;
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Whether a report is large enough to be sharded. Files beyond 2 GB
+	 * cannot be mapped at once and are left to the normal read.
+	 * @param fXml
+	 * @return
+	 */
+	static boolean isLarge(final File fXml) {
+		final long lLength = fXml.length();
+		return lLength >= THRESHOLD && lLength <= Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the time spent finding the shards.
+	 * @return nsec
+	 */
+	long getScanNanos() {
+		return lScanNanos;
+	}
+
+	/**
+	 * Reads the report, adding the findings to the collection in document
+	 * order as the shards complete.
+	 *
+	 * @param fXml the report
+	 * @param target the collection for the findings
+	 * @param progress
+	 * @return false if the report is compressed or no section was found,
+	 *         nothing was added then
+	 * @throws IOException if the report or one of its shards cannot be read
+	 * @throws OperationCanceledException
+	 */
+	boolean read(final File fXml, final Collection<IItem> target, final SubMonitor progress) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(fXml, "r");
+		try {
+			final long lStart = System.nanoTime();
+			final MappedByteBuffer buf = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			if (Compression.detect(buf) != Compression.NONE) {
+				return false;
+			}
+			final byte[] prolog = getProlog(buf);
+			final List<Shard> shards = new ArrayList<Shard>();
+			for (ReportSection section : ReportSection.values()) {
+				if (parsers.contains(section.getSource())) {
+					split(buf, section, shards);
+				}
+			}
+			lScanNanos = System.nanoTime() - lStart;
+			CinderLog.logDebug("SRR:" + fXml + ":" + shards.size() + " shards");
+			if (shards.isEmpty()) {
+				return false;
+			}
+			parse(buf, prolog, shards, target, progress);
+			return true;
+		} finally {
+			raf.close();
+		}
+	}
+
+	private void parse(final ByteBuffer buf, final byte[] prolog, final List<Shard> shards,
+			final Collection<IItem> target, final SubMonitor progress) throws IOException {
+		final ParallelParse parts = new ParallelParse(monitor, shards.size());
+		try {
+			for (Shard shard : shards) {
+				parts.submit(new ShardTask(buf.duplicate(), prolog, shard, parts.newPartMonitor()));
+			}
+			parts.drainTo(target, progress);
+		} finally {
+			parts.shutdown();
+		}
+	}
+
+	/**
+	 * Cuts a section into shards of about SHARD_SIZE bytes, each ending
+	 * after a closing record tag.
+	 */
+	private static void split(final ByteBuffer buf, final ReportSection section, final List<Shard> shards) {
+		final byte[] open = ascii("<" + section.getTag());
+		final byte[] close = ascii("</" + section.getTag() + ">");
+		final byte[] record = ascii("</" + section.getRecord() + ">");
+		final int iLimit = buf.limit();
+
+		int iTag = indexOf(buf, open, 0, iLimit);
+		// skip longer names like pmd-cpd for pmd
+		while (iTag >= 0 && iTag + open.length < iLimit && !isNameEnd(buf.get(iTag + open.length))) {
+			iTag = indexOf(buf, open, iTag + open.length, iLimit);
+		}
+		if (iTag < 0) {
+			return;
+		}
+		final int iTagEnd = indexOf(buf, ascii(">"), iTag, iLimit);
+		if (iTagEnd < 0 || buf.get(iTagEnd - 1) == '/') {
+			// empty section
+			return;
+		}
+		final int iEnd = indexOf(buf, close, iTagEnd + 1, iLimit);
+		if (iEnd < 0) {
+			return;
+		}
+		int iPos = iTagEnd + 1;
+		while (iPos < iEnd) {
+			int iCut = iEnd;
+			if (iEnd - iPos > SHARD_SIZE) {
+				final int iRecord = indexOf(buf, record, iPos + SHARD_SIZE, iEnd);
+				if (iRecord >= 0) {
+					iCut = iRecord + record.length;
+				}
+			}
+			shards.add(new Shard(section, iPos, iCut));
+			iPos = iCut;
+		}
+	}
+
+	private static boolean isNameEnd(final byte b) {
+		return b == '>' || b == '/' || b == ' ' || b == '\t' || b == '\r' || b == '\n';
+	}
+
+	private static int indexOf(final ByteBuffer buf, final byte[] pattern, final int iFrom, final int iTo) {
+		final byte bFirst = pattern[0];
+		final int iLast = iTo - pattern.length;
+		outer:
+		for (int i = iFrom; i <= iLast; i++) {
+			if (buf.get(i) != bFirst) {
+				continue;
+			}
+			for (int j = 1; j < pattern.length; j++) {
+				if (buf.get(i + j) != pattern[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the byte order mark and XML declaration of the report, so
+	 * every shard is decoded like the whole report.
+	 */
+	private static byte[] getProlog(final ByteBuffer buf) {
+		final int iEnd = indexOf(buf, ascii("?>"), 0, Math.min(buf.limit(), 512));
+		final int iDecl = indexOf(buf, ascii("<?xml"), 0, Math.min(buf.limit(), 8));
+		if (iDecl < 0 || iEnd < 0) {
+			return new byte[0];
+		}
+		final byte[] prolog = new byte[iEnd + 2];
+		for (int i = 0; i < prolog.length; i++) {
+			prolog[i] = buf.get(i);
+		}
+		return prolog;
+	}
+
+	private static byte[] ascii(final String s) {
+		final byte[] bytes = new byte[s.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) s.charAt(i);
+		}
+		return bytes;
+	}
+
+	/**
+	 * A byte range of top level elements within one section.
+	 */
+	private static class Shard {
+		final ReportSection section;
+		final int iStart;
+		final int iEnd;
+
+		Shard(final ReportSection section, final int iStart, final int iEnd) {
+			this.section = section;
+			this.iStart = iStart;
+			this.iEnd = iEnd;
+		}
+	}
+
+	/**
+	 * Parses one shard, wrapped in its section element.
+	 */
+	private class ShardTask implements Callable<List<IItem>> {
+		private final ByteBuffer buf;
+		private final byte[] prolog;
+		private final Shard shard;
+		private final IProgressMonitor pm;
+
+		ShardTask(final ByteBuffer buf, final byte[] prolog, final Shard shard, final IProgressMonitor pm) {
+			this.buf = buf;
+			this.prolog = prolog;
+			this.shard = shard;
+			this.pm = pm;
+		}
+
+		@Override
+		public List<IItem> call() throws Exception {
+			final String sTag = shard.section.getTag();
+			buf.limit(shard.iEnd).position(shard.iStart);
+			final InputStream in = new SequenceInputStream(Collections.enumeration(Arrays.asList(
+					new ByteArrayInputStream(prolog),
+					new ByteArrayInputStream(ascii("<" + sTag + ">")),
+					new ByteBufferInputStream(buf.slice()),
+					new ByteArrayInputStream(ascii("</" + sTag + ">")))));
+			final DocumentBuilderPool pool = DocumentBuilderPool.getPool();
+			final DocumentBuilder builder = pool.borrow();
+			final Document doc;
+			try {
+				doc = builder.parse(in);
+			} finally {
+				pool.release(builder);
+			}
+			final List<IItem> items = new ArrayList<IItem>();
+			final AbstractReportParser parser = shard.section.newParser(
+					doc.getDocumentElement().getChildNodes(), items);
+			parser.setMonitor(pm);
+			parser.setSuppressions(suppressions);
+			parser.parse();
+			return items;
+		}
+	}
+
+	/**
+	 * Reads the remaining bytes of a buffer.
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buf;
+
+		ByteBufferInputStream(final ByteBuffer buf) {
+			this.buf = buf;
+		}
+
+		@Override
+		public int read() {
+			return buf.hasRemaining() ? (buf.get() & 0xff) : -1;
+		}
+
+		@Override
+		public int read(final byte[] b, final int iOff, final int iLen) {
+			if (iLen == 0) {
+				return 0;
+			}
+			if (!buf.hasRemaining()) {
+				return -1;
+			}
+			final int iCount = Math.min(iLen, buf.remaining());
+			buf.get(b, iOff, iCount);
+			return iCount;
+		}
+
+		@Override
+		public int available() {
+			return buf.remaining();
+		}
+	}
+}
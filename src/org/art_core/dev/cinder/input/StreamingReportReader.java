@@ -0,0 +1,284 @@
+package org.art_core.dev.cinder.input;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.art_core.dev.cinder.model.DuplicateItem;
+import org.art_core.dev.cinder.model.IItem;
+import org.art_core.dev.cinder.model.ItemSource;
+import org.art_core.dev.cinder.model.PropertiesItem;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Reads a report with a pull parser and adds every finding to the target
+ * as soon as its element was read, without building a document first.
+ * In streaming mode the first findings are thus shown while the rest of
+ * the report is still being downloaded.
+ * <p>
+ * The findings are the same as those of the section parsers: a section is
+ * read from its first element only, and the findings of a section keep
+ * their order, so they get the same fingerprints. Only the order of the
+ * sections follows the report.
+ * @author Florian Anderiasch
+ *
+ */
+final class StreamingReportReader {
+	private final Set<ItemSource> parsers;
+	private final SuppressionRules suppressions;
+	private final IProgressMonitor monitor;
+	private final Set<ReportSection> seen = EnumSet.noneOf(ReportSection.class);
+	private int iSuppressed;
+
+	/**
+	 * Constructor.
+	 * @param parsers the sections to read
+	 * @param suppressions the findings to drop
+	 * @param monitor the monitor checked for cancellation per record
+	 */
+	StreamingReportReader(final Set<ItemSource> parsers, final SuppressionRules suppressions,
+			final IProgressMonitor monitor) {
+		this.parsers = parsers;
+		this.suppressions = suppressions;
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Returns the number of findings dropped by the suppression rules.
+	 * @return
+	 */
+	int getSuppressedCount() {
+		return iSuppressed;
+	}
+
+	/**
+	 * Reads the report, adding the findings to the collection as they
+	 * are parsed.
+	 *
+	 * @param in the uncompressed report
+	 * @param sSystemId the location of the report
+	 * @param target the collection for the findings
+	 * @throws XMLStreamException if the report is not well-formed
+	 * @throws OperationCanceledException
+	 */
+	void read(final InputStream in, final String sSystemId, final Collection<IItem> target)
+			throws XMLStreamException {
+		final XMLStreamReader xml = DocumentBuilderPool.getPool().createStreamReader(sSystemId, in);
+		try {
+			while (xml.hasNext()) {
+				if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+					continue;
+				}
+				final ReportSection section = getSection(xml.getLocalName());
+				if (section != null && seen.add(section) && parsers.contains(section.getSource())) {
+					readSection(xml, section, target);
+				}
+			}
+		} finally {
+			xml.close();
+		}
+	}
+
+	private static ReportSection getSection(final String sTag) {
+		for (ReportSection section : ReportSection.values()) {
+			if (section.getTag().equals(sTag)) {
+				return section;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the records of a section up to its end tag.
+	 */
+	private void readSection(final XMLStreamReader xml, final ReportSection section,
+			final Collection<IItem> target) throws XMLStreamException {
+		while (true) {
+			final int iEvent = xml.next();
+			if (iEvent == XMLStreamConstants.END_ELEMENT) {
+				return;
+			}
+			if (iEvent != XMLStreamConstants.START_ELEMENT) {
+				continue;
+			}
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			if (section == ReportSection.CPD) {
+				readDuplication(xml, target);
+			} else {
+				readFile(xml, section, target);
+			}
+		}
+	}
+
+	/**
+	 * Reads the findings of one file element, e.g.
+	 * &lt;file name=""&gt;&lt;error line="" .../&gt;&lt;/file&gt;.
+	 */
+	private void readFile(final XMLStreamReader xml, final ReportSection section,
+			final Collection<IItem> target) throws XMLStreamException {
+		final String sTargetFileName = getAttribute(xml, "name");
+		while (true) {
+			final int iEvent = xml.next();
+			if (iEvent == XMLStreamConstants.END_ELEMENT) {
+				return;
+			}
+			if (iEvent != XMLStreamConstants.START_ELEMENT) {
+				continue;
+			}
+			final PropertiesItem pItem = (section == ReportSection.PHPMD)
+					? readViolation(xml, sTargetFileName)
+					: readError(xml, section, sTargetFileName);
+			if (pItem != null) {
+				target.add(pItem);
+			}
+		}
+	}
+
+	/**
+	 * Reads a Padawan or Checkstyle error, which has no content.
+	 * @return the finding or <code>null</code> if suppressed
+	 */
+	private PropertiesItem readError(final XMLStreamReader xml, final ReportSection section,
+			final String sTargetFileName) throws XMLStreamException {
+		final ItemSource source = section.getSource();
+		final String eMessage = getAttribute(xml, "message");
+		final String ePattern = getAttribute(xml, (section == ReportSection.CHECKSTYLE) ? "source" : "pattern");
+		final String sLine = getAttribute(xml, "line");
+		final String sColumn = getAttribute(xml, "column");
+		final String sSeverity = getAttribute(xml, "severity");
+		skipElement(xml);
+		if (isSuppressed(source, ePattern, sTargetFileName, eMessage)) {
+			return null;
+		}
+		final PropertiesItem pItem = new PropertiesItem(ePattern,
+				sTargetFileName,
+				AttributeDecoder.getSeverity(sSeverity),
+				AttributeDecoder.parseInt(sLine, PropertiesItem.DEFAULT_LINE),
+				AttributeDecoder.parseInt(sColumn, PropertiesItem.DEFAULT_OFFSET));
+		pItem.setMessage(eMessage);
+		pItem.setSource(source);
+		return pItem;
+	}
+
+	/**
+	 * Reads a PHPMD violation, whose text is the message.
+	 * @return the finding or <code>null</code> if suppressed
+	 */
+	private PropertiesItem readViolation(final XMLStreamReader xml, final String sTargetFileName)
+			throws XMLStreamException {
+		final String ePattern = getAttribute(xml, "rule");
+		final String sBeginLine = getAttribute(xml, "beginline");
+		final String sEndLine = getAttribute(xml, "endline");
+		final String sPriority = getAttribute(xml, "priority");
+		final String eRuleSet = getAttribute(xml, "ruleset");
+		final String ePackage = getAttribute(xml, "package");
+		final String eExternalInfoUrl = getAttribute(xml, "externalInfoUrl");
+		final String eClass = getAttribute(xml, "class");
+		final String eMessage = readText(xml);
+		if (isSuppressed(ItemSource.PHPMD, ePattern, sTargetFileName, eMessage)) {
+			return null;
+		}
+		final PropertiesItem pItem = new PropertiesItem(ePattern,
+				sTargetFileName,
+				AttributeDecoder.getPriority(sPriority),
+				AttributeDecoder.parseInt(sBeginLine, PropertiesItem.DEFAULT_LINE),
+				AttributeDecoder.parseInt(sEndLine, PropertiesItem.DEFAULT_OFFSET));
+		pItem.setMessage(eMessage);
+		pItem.setSource(ItemSource.PHPMD);
+		pItem.setDetail("ruleset", eRuleSet);
+		pItem.setDetail("package", ePackage);
+		pItem.setDetail("class", eClass);
+		pItem.setDetail("reference", eExternalInfoUrl);
+		return pItem;
+	}
+
+	/**
+	 * Reads a duplication with all its &lt;file path="" line=""&gt; copies.
+	 */
+	private void readDuplication(final XMLStreamReader xml, final Collection<IItem> target)
+			throws XMLStreamException {
+		final List<DuplicateItem> copies = new ArrayList<DuplicateItem>();
+		int iDepth = 1;
+		while (iDepth > 0) {
+			final int iEvent = xml.next();
+			if (iEvent == XMLStreamConstants.START_ELEMENT) {
+				iDepth++;
+				if ("file".equals(xml.getLocalName())) {
+					final DuplicateItem dItem = new DuplicateItem("CPD_Finding", getAttribute(xml, "path"),
+							AttributeDecoder.parseInt(getAttribute(xml, "line"), DuplicateItem.DEFAULT_LINE));
+					dItem.setSource(ItemSource.CPD);
+					copies.add(dItem);
+				}
+			} else if (iEvent == XMLStreamConstants.END_ELEMENT) {
+				iDepth--;
+			}
+		}
+		final DuplicateItem[] dItems = copies.toArray(new DuplicateItem[copies.size()]);
+		CruiseControlCpdParser.linkCopies(dItems);
+		for (DuplicateItem dItem : dItems) {
+			if (!isSuppressed(ItemSource.CPD, dItem.getName(), dItem.getLocation(), dItem.getMessage())) {
+				target.add(dItem);
+			}
+		}
+	}
+
+	private boolean isSuppressed(final ItemSource source, final String sRule,
+			final String sPath, final String sMessage) {
+		if (suppressions.isEmpty() || !suppressions.matches(source, sRule, sPath, sMessage)) {
+			return false;
+		}
+		iSuppressed++;
+		return true;
+	}
+
+	private static String getAttribute(final XMLStreamReader xml, final String sName) {
+		final String sValue = xml.getAttributeValue(null, sName);
+		return (sValue == null) ? "" : sValue;
+	}
+
+	/**
+	 * Skips to the end of the current element.
+	 */
+	private static void skipElement(final XMLStreamReader xml) throws XMLStreamException {
+		int iDepth = 1;
+		while (iDepth > 0) {
+			final int iEvent = xml.next();
+			if (iEvent == XMLStreamConstants.START_ELEMENT) {
+				iDepth++;
+			} else if (iEvent == XMLStreamConstants.END_ELEMENT) {
+				iDepth--;
+			}
+		}
+	}
+
+	/**
+	 * Returns the trimmed text of the current element and its children,
+	 * reading to its end.
+	 */
+	private static String readText(final XMLStreamReader xml) throws XMLStreamException {
+		final StringBuilder str = new StringBuilder();
+		int iDepth = 1;
+		while (iDepth > 0) {
+			final int iEvent = xml.next();
+			if (iEvent == XMLStreamConstants.START_ELEMENT) {
+				iDepth++;
+			} else if (iEvent == XMLStreamConstants.END_ELEMENT) {
+				iDepth--;
+			} else if (iEvent == XMLStreamConstants.CHARACTERS || iEvent == XMLStreamConstants.CDATA
+					|| iEvent == XMLStreamConstants.SPACE) {
+				str.append(xml.getText());
+			}
+		}
+		return str.toString().trim();
+	}
+}
@@ -0,0 +1,271 @@
+package org.art_core.dev.cinder.input;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.art_core.dev.cinder.CinderLog;
+import org.art_core.dev.cinder.model.ItemSource;
+
+/**
+ * Findings the parsers drop before they are allocated. A rules file has
+ * one rule per line, with four fields separated by '|':
+ * <pre>
+ * # source | rule | path glob | message regex
+ * PHPMD|ShortVariable|/var/ci/project/src/legacy/**|
+ * CHECKSTYLE||**&#47;generated/*.php|
+ * |||deprecated
+ * </pre>
+ * An empty field or '*' matches anything; the message regex may match
+ * anywhere in the message. In globs, '*' matches within a path segment,
+ * '**' across segments and '?' a single character.
+ * <p>
+ * The rules are compiled once into a trie over the literal prefixes of
+ * their globs, with the rules of each node hashed by rule name. A finding
+ * is then checked only against the rules whose prefix its path starts
+ * with and whose rule name it has.
+ * @author Florian Anderiasch
+ *
+ */
+public final class SuppressionRules {
+	public static final SuppressionRules NONE = new SuppressionRules();
+	private static final String ANY = "*";
+	private static final String SEP = "|";
+
+	private final Node root = new Node();
+	private int iSize;
+
+	private SuppressionRules() {}
+
+	/**
+	 * Reads and compiles a rules file.
+	 * @param fRules
+	 * @return the rules, NONE if the file cannot be read
+	 */
+	public static SuppressionRules load(final File fRules) {
+		final SuppressionRules rules = new SuppressionRules();
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(fRules), "UTF-8"));
+			String sLine;
+			int iLine = 0;
+			while ((sLine = reader.readLine()) != null) {
+				iLine++;
+				rules.add(sLine, iLine);
+			}
+		} catch (IOException e) {
+			CinderLog.logError("Could not read suppression rules " + fRules, e);
+			return NONE;
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					CinderLog.logErrorInfo("SRu:close", e);
+				}
+			}
+		}
+		CinderLog.logDebug("SRu:" + rules.size() + " rules from " + fRules);
+		return rules;
+	}
+
+	private void add(final String sLine, final int iLine) {
+		final String sTrimmed = sLine.trim();
+		if (sTrimmed.length() == 0 || sTrimmed.startsWith("#")) {
+			return;
+		}
+		final String[] fields = sTrimmed.split(Pattern.quote(SEP), -1);
+		if (fields.length != 4) {
+			CinderLog.logInfo("SRu:line " + iLine + ": expected 4 fields");
+			return;
+		}
+		try {
+			final ItemSource source = isAny(fields[0]) ? null : ItemSource.valueOf(fields[0].trim().toUpperCase());
+			final String sRule = isAny(fields[1]) ? null : fields[1].trim();
+			final String sGlob = isAny(fields[2]) ? "" : fields[2].trim();
+			final Pattern message = isAny(fields[3]) ? null : Pattern.compile(fields[3].trim());
+
+			// the literal prefix of the glob goes into the trie
+			int iWild = 0;
+			while (iWild < sGlob.length() && "*?".indexOf(sGlob.charAt(iWild)) < 0) {
+				iWild++;
+			}
+			final Pattern rest = (iWild < sGlob.length()) ? compileGlob(sGlob.substring(iWild)) : null;
+			final Rule rule = new Rule(source, rest, message, sGlob.length() == 0);
+			root.insert(sGlob, iWild).add(sRule, rule);
+			iSize++;
+		} catch (IllegalArgumentException e) {
+			// unknown source or broken regex
+			CinderLog.logInfo("SRu:line " + iLine + ": " + e.getMessage());
+		}
+	}
+
+	private static boolean isAny(final String sField) {
+		final String sTrimmed = sField.trim();
+		return sTrimmed.length() == 0 || ANY.equals(sTrimmed);
+	}
+
+	/**
+	 * Translates the part of a glob from its first wildcard on.
+	 */
+	private static Pattern compileGlob(final String sGlob) {
+		final StringBuilder str = new StringBuilder(sGlob.length() * 2);
+		for (int i = 0; i < sGlob.length(); i++) {
+			final char c = sGlob.charAt(i);
+			if (c == '*') {
+				if (i + 1 < sGlob.length() && sGlob.charAt(i + 1) == '*') {
+					str.append(".*");
+					i++;
+				} else {
+					str.append("[^/]*");
+				}
+			} else if (c == '?') {
+				str.append("[^/]");
+			} else {
+				str.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		return Pattern.compile(str.toString());
+	}
+
+	public boolean isEmpty() {
+		return iSize == 0;
+	}
+
+	public int size() {
+		return iSize;
+	}
+
+	/**
+	 * Whether a finding is suppressed.
+	 * @param source
+	 * @param sRule the rule or pattern name
+	 * @param sPath the file of the finding
+	 * @param sMessage the message or <code>null</code> if not known yet
+	 * @return
+	 */
+	public boolean matches(final ItemSource source, final String sRule, final String sPath, final String sMessage) {
+		Node node = root;
+		for (int i = 0; node != null; i++) {
+			if (node.matches(source, sRule, sPath, i, sMessage)) {
+				return true;
+			}
+			if (i >= sPath.length()) {
+				break;
+			}
+			node = node.get(sPath.charAt(i));
+		}
+		return false;
+	}
+
+	/**
+	 * A node of the trie; holds the rules whose literal glob prefix ends
+	 * here, hashed by rule name.
+	 */
+	private static class Node {
+		private Map<Character, Node> children;
+		private Map<String, List<Rule>> byRule;
+		private List<Rule> anyRule;
+
+		Node get(final char c) {
+			return (children == null) ? null : children.get(c);
+		}
+
+		Node insert(final String sPrefix, final int iLength) {
+			Node node = this;
+			for (int i = 0; i < iLength; i++) {
+				if (node.children == null) {
+					node.children = new HashMap<Character, Node>();
+				}
+				Node next = node.children.get(sPrefix.charAt(i));
+				if (next == null) {
+					next = new Node();
+					node.children.put(sPrefix.charAt(i), next);
+				}
+				node = next;
+			}
+			return node;
+		}
+
+		void add(final String sRule, final Rule rule) {
+			if (sRule == null) {
+				if (anyRule == null) {
+					anyRule = new ArrayList<Rule>();
+				}
+				anyRule.add(rule);
+				return;
+			}
+			if (byRule == null) {
+				byRule = new HashMap<String, List<Rule>>();
+			}
+			List<Rule> rules = byRule.get(sRule);
+			if (rules == null) {
+				rules = new ArrayList<Rule>();
+				byRule.put(sRule, rules);
+			}
+			rules.add(rule);
+		}
+
+		boolean matches(final ItemSource source, final String sRule, final String sPath,
+				final int iDepth, final String sMessage) {
+			if (byRule != null && matchesAny(byRule.get(sRule), source, sPath, iDepth, sMessage)) {
+				return true;
+			}
+			return matchesAny(anyRule, source, sPath, iDepth, sMessage);
+		}
+
+		private static boolean matchesAny(final List<Rule> rules, final ItemSource source,
+				final String sPath, final int iDepth, final String sMessage) {
+			if (rules == null) {
+				return false;
+			}
+			for (Rule rule : rules) {
+				if (rule.matches(source, sPath, iDepth, sMessage)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * The parts of a rule checked after the trie and rule hash.
+	 */
+	private static class Rule {
+		private final ItemSource source;
+		// the glob after its literal prefix, null if the glob is all literal
+		private final Pattern rest;
+		private final Pattern message;
+		private final boolean bAnyPath;
+
+		Rule(final ItemSource source, final Pattern rest, final Pattern message, final boolean bAnyPath) {
+			this.source = source;
+			this.rest = rest;
+			this.message = message;
+			this.bAnyPath = bAnyPath;
+		}
+
+		boolean matches(final ItemSource src, final String sPath, final int iDepth, final String sMessage) {
+			if (source != null && source != src) {
+				return false;
+			}
+			if (!bAnyPath) {
+				if (rest == null) {
+					if (iDepth != sPath.length()) {
+						return false;
+					}
+				} else if (!rest.matcher(sPath).region(iDepth, sPath.length()).matches()) {
+					return false;
+				}
+			}
+			return message == null || (sMessage != null && message.matcher(sMessage).find());
+		}
+	}
+}
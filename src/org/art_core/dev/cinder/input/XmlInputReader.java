@@ -1,16 +1,37 @@
 package org.art_core.dev.cinder.input;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLStreamException;
 
 import org.art_core.dev.cinder.CinderLog;
+import org.art_core.dev.cinder.model.Fingerprint;
 import org.art_core.dev.cinder.model.IItem;
+import org.art_core.dev.cinder.model.ItemSource;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
 
@@ -20,8 +41,59 @@ import org.w3c.dom.NodeList;
  *
  */
 public class XmlInputReader implements IInputHandler {
+	/** read buffer in front of the parser or decompressor */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/** zip entries inflated but not parsed yet */
+	private static final int MAX_ENTRIES_IN_FLIGHT = 4;
+	/** the largest zip entry that is inflated, in bytes */
+	private static final int MAX_ENTRY_SIZE = 64 << 20;
+	/** the most memory reserved up front for a zip entry */
+	private static final int MAX_ENTRY_RESERVE = 4 << 20;
+
 	private String sFilename = null;
 	private final Collection<IItem> items = new ArrayList<IItem>();
+	private Set<ItemSource> parsers = EnumSet.allOf(ItemSource.class);
+	private long lBytesRead;
+	private long lFetchNanos;
+	private long lParseNanos;
+	private DeadlineMonitor monitor = new DeadlineMonitor(new NullProgressMonitor(), 0);
+	private volatile InputStream current;
+	private IChunkListener chunkListener;
+	private SuppressionRules suppressions = SuppressionRules.NONE;
+	private boolean bComplete;
+
+	/**
+	 * Sets the monitor for progress and cancellation.
+	 * @param pm the monitor
+	 * @param lTimeout the time budget in msec, 0 for none
+	 */
+	public void setMonitor(final IProgressMonitor pm, final long lTimeout) {
+		this.monitor = new DeadlineMonitor(pm, lTimeout);
+	}
+
+	/**
+	 * Restricts the sections of the report that are parsed.
+	 * @param sources the sources to parse
+	 */
+	public void setParsers(final Set<ItemSource> sources) {
+		this.parsers = sources;
+	}
+
+	/**
+	 * Sets the rules for findings that are dropped while parsing.
+	 * @param rules
+	 */
+	public void setSuppressions(final SuppressionRules rules) {
+		this.suppressions = rules;
+	}
+
+	/**
+	 * Publishes the findings in chunks while parsing.
+	 * @param listener the listener or <code>null</code> for no chunks
+	 */
+	public void setChunkListener(final IChunkListener listener) {
+		this.chunkListener = listener;
+	}
 
 	/**
 	 * Reads an XML file from an URI.
@@ -63,36 +135,210 @@ public class XmlInputReader implements IInputHandler {
 	}
 
 	/**
-	 * Reads an XML file.
+	 * Reads an XML file. The file may be gzip compressed or a zip of
+	 * reports, which is told by its first bytes. In streaming mode, plain
+	 * and gzip reports are read with a pull parser instead of into a
+	 * document.
 	 * 
 	 * @param sFile
 	 *            the filename
 	 * @param bRemote
 	 *            Whether the file is given via URI
+	 * @throws OperationCanceledException
+	 *            if the monitor was canceled or the timeout passed; no
+	 *            items are kept in that case
 	 */
 	protected void readFromFile(final String sFile, final boolean bRemote) {
 		this.sFilename = sFile;
+		this.bComplete = false;
 		File fXml = null;
 		Document doc = null;
 
-		final DocumentBuilderFactory fac = DocumentBuilderFactory.newInstance();
+		final DocumentBuilderPool pool = DocumentBuilderPool.getPool();
+		DocumentBuilder builder = null;
+		final long lStart = System.nanoTime();
+		final SubMonitor progress = SubMonitor.convert(monitor, sFile, 100);
+		if (!bRemote && ShardedReportReader.isLarge(new File(sFile))
+				&& readSharded(new File(sFile), progress)) {
+			CinderLog.logDebug("XIR:RFF_S:" + sFile);
+			return;
+		}
+		final SubMonitor fetch = progress.newChild(60);
+		CountingInputStream in = null;
 
 		try {
-			final DocumentBuilder builder = fac.newDocumentBuilder();
+			final String sSystemId;
+			builder = pool.borrow();
 			if (bRemote) {
-				doc = builder.parse(sFile);
+				final URLConnection conn = new URL(sFile).openConnection();
+				conn.setConnectTimeout(monitor.getRemaining());
+				conn.setReadTimeout(monitor.getRemaining());
+				conn.setRequestProperty("Accept-Encoding", "gzip");
+				fetch.setWorkRemaining(Math.max(1, conn.getContentLength() / 1024));
+				in = open(new MonitoredInputStream(conn.getInputStream(), fetch));
+				sSystemId = sFile;
 				CinderLog.logDebug("XIR:RFF_R:" + sFile);
 			} else {
 				fXml = new File(sFile);
-				doc = builder.parse(fXml);
+				fetch.setWorkRemaining((int) Math.max(1, fXml.length() / 1024));
+				in = open(new MonitoredInputStream(new FileInputStream(fXml), fetch));
+				sSystemId = fXml.toURI().toString();
 				CinderLog.logDebug("XIR:RFF_L:" + sFile + "_" + fXml.length());
 			}
+			final InputStream body = new BufferedInputStream(in, BUFFER_SIZE);
+			final Compression compression = Compression.detect(body);
+			if (chunkListener != null && (compression == Compression.NONE || compression == Compression.GZIP)) {
+				readStreaming((compression == Compression.GZIP) ? new GZIPInputStream(body, BUFFER_SIZE) : body,
+						sSystemId);
+			} else {
+				switch (compression) {
+				case GZIP:
+					doc = builder.parse(new GZIPInputStream(body, BUFFER_SIZE), sSystemId);
+					break;
+				case ZIP:
+					readArchive(new ZipInputStream(body), progress.newChild(40));
+					break;
+				case ZSTD:
+					throw new IOException("zstd compressed reports are not supported: " + sFile);
+				default:
+					doc = builder.parse(body, sSystemId);
+					break;
+				}
+			}
 		} catch (java.net.ConnectException e) {
 			CinderLog.logInfo("Could not connect to host");
 		} catch (Exception e) {
-			CinderLog.logError(e);
+			// an incomplete archive is treated like a broken document
+			items.clear();
+			if (!monitor.isCanceled()) {
+				CinderLog.logError(e);
+			}
+		} finally {
+			pool.release(builder);
+			if (in != null) {
+				lBytesRead = in.getCount();
+				close(in);
+				current = null;
+			}
+		}
+		checkCanceled();
+		final long lParsed = System.nanoTime();
+		lFetchNanos = lParsed - lStart;
+		if (doc != null) {
+			this.parseDocument(doc, progress.newChild(40));
+		}
+		lParseNanos = System.nanoTime() - lParsed;
+		checkCanceled();
+	}
+
+	/**
+	 * Reads a report in streaming mode, publishing the findings in chunks
+	 * while the bytes come in.
+	 * 
+	 * @param xml the uncompressed report
+	 * @param sSystemId
+	 * @throws XMLStreamException
+	 * @throws OperationCanceledException
+	 */
+	private void readStreaming(final InputStream xml, final String sSystemId) throws XMLStreamException {
+		final ChunkingCollection chunks = newChunks();
+		final StreamingReportReader reader = new StreamingReportReader(parsers, suppressions, monitor);
+		reader.read(xml, sSystemId, chunks);
+		finish(chunks);
+		if (reader.getSuppressedCount() > 0) {
+			CinderLog.logDebug("XIR:suppressed " + reader.getSuppressedCount());
+		}
+		bComplete = true;
+	}
+
+	/**
+	 * Reads the XML entries of a zip and adds their findings in archive
+	 * order. Every entry is inflated into memory and parsed on its own
+	 * thread while the next one is read. At most MAX_ENTRIES_IN_FLIGHT
+	 * entries wait for their parse, and an entry larger than
+	 * MAX_ENTRY_SIZE fails the read, so a large or malicious archive
+	 * cannot exhaust the heap.
+	 * 
+	 * @param zin the archive
+	 * @param pm
+	 * @throws IOException if the archive or one of its entries cannot be read
+	 * @throws OperationCanceledException
+	 */
+	private void readArchive(final ZipInputStream zin, final IProgressMonitor pm) throws IOException {
+		final ChunkingCollection chunks = newChunks();
+		final Collection<IItem> target = (chunks == null) ? items : chunks;
+		final SubMonitor progress = SubMonitor.convert(pm);
+		final ParallelParse archive = new ParallelParse(monitor, 0);
+		try {
+			final byte[] buf = new byte[BUFFER_SIZE];
+			ZipEntry entry;
+			while ((entry = zin.getNextEntry()) != null) {
+				if (entry.isDirectory() || !entry.getName().toLowerCase().endsWith(".xml")) {
+					continue;
+				}
+				final ByteArrayOutputStream out = new ByteArrayOutputStream(
+						(int) Math.max(BUFFER_SIZE, Math.min(entry.getSize(), MAX_ENTRY_RESERVE)));
+				int iRead;
+				while ((iRead = zin.read(buf)) > 0) {
+					if (out.size() + iRead > MAX_ENTRY_SIZE) {
+						throw new IOException("zip entry " + entry.getName() + " is larger than "
+								+ MAX_ENTRY_SIZE + " bytes");
+					}
+					out.write(buf, 0, iRead);
+				}
+				CinderLog.logDebug("XIR:entry:" + entry.getName() + "_" + out.size());
+				archive.submit(new EntryTask(out.toByteArray(), archive.newPartMonitor()));
+				archive.drainTo(target, progress, MAX_ENTRIES_IN_FLIGHT);
+			}
+			archive.drainTo(target, progress);
+		} finally {
+			archive.shutdown();
+		}
+		finish(chunks);
+		bComplete = true;
+	}
+
+	private CountingInputStream open(final CountingInputStream in) {
+		current = in;
+		if (monitor.isCanceled()) {
+			// aborted before the stream was known
+			close(in);
+		}
+		return in;
+	}
+
+	/**
+	 * Stops reading. An in-flight read is interrupted by closing its
+	 * stream; this may be called from any thread.
+	 */
+	public void abort() {
+		monitor.setCanceled(true);
+		final InputStream in = current;
+		if (in != null) {
+			close(in);
+		}
+	}
+
+	/**
+	 * Discards the partial results if reading was canceled.
+	 * @throws OperationCanceledException
+	 */
+	private void checkCanceled() {
+		if (monitor.isCanceled()) {
+			items.clear();
+			if (monitor.isTimedOut()) {
+				CinderLog.logInfo("XIR:timeout reading " + sFilename);
+			}
+			throw new OperationCanceledException();
+		}
+	}
+
+	private static void close(final InputStream in) {
+		try {
+			in.close();
+		} catch (IOException e) {
+			CinderLog.logErrorInfo("XIR:close", e);
 		}
-		this.parseDocument(doc);
 	}
 
 	/**
@@ -101,38 +347,138 @@ public class XmlInputReader implements IInputHandler {
 	 * @param doc
 	 */
 	protected void parseDocument(final Document doc) {
+		parseDocument(doc, null);
+	}
+
+	/**
+	 * Parses a Document, reporting progress per section.
+	 * 
+	 * @param doc
+	 * @param pm the monitor or <code>null</code>
+	 */
+	protected void parseDocument(final Document doc, final IProgressMonitor pm) {
+		final ChunkingCollection chunks = newChunks();
 		try {
-			NodeList fileNodes = this.getChildNodes(doc, "padawan");
+			parseSections(doc, (chunks == null) ? items : chunks, pm);
+			finish(chunks);
+			bComplete = true;
+		} catch (OperationCanceledException e) {
+			throw e;
+		} catch (Exception e) {
+			items.clear();
+			CinderLog.logError(e);
+		}
+	}
+
+	/**
+	 * Runs the parsers of all sections on a Document.
+	 * Only reads fields, so it may run on several threads at once.
+	 * 
+	 * @param doc
+	 * @param target the collection for the findings
+	 * @param pm the monitor or <code>null</code>
+	 */
+	private void parseSections(final Document doc, final Collection<IItem> target, final IProgressMonitor pm) {
+		final ReportSection[] sections = ReportSection.values();
+		final SubMonitor progress = SubMonitor.convert(pm, sections.length);
+		for (ReportSection section : sections) {
+			final NodeList fileNodes = this.getChildNodes(doc, section.getTag(), section.getSource());
 			if (fileNodes != null) {
-				CruiseControlPadawanParser padparser = new CruiseControlPadawanParser(fileNodes, items);
-				padparser.parse();
+				final AbstractReportParser parser = section.newParser(fileNodes, target);
+				parser.setMonitor(progress.newChild(1));
+				parser.setSuppressions(suppressions);
+				parser.parse();
+				if (parser.getSuppressedCount() > 0) {
+					CinderLog.logDebug("XIR:suppressed " + parser.getSuppressedCount() + " in " + section.getTag());
+				}
 			}
-			
-			fileNodes = this.getChildNodes(doc, "pmd");
-			if (fileNodes != null) {
-				CruiseControlPMDParser pmdparser = new CruiseControlPMDParser(fileNodes, items);
-				pmdparser.parse();
+		}
+	}
+
+	/**
+	 * Parses one inflated zip entry.
+	 */
+	private class EntryTask implements Callable<List<IItem>> {
+		private final byte[] content;
+		private final IProgressMonitor pm;
+
+		EntryTask(final byte[] content, final IProgressMonitor pm) {
+			this.content = content;
+			this.pm = pm;
+		}
+
+		@Override
+		public List<IItem> call() throws Exception {
+			final DocumentBuilderPool pool = DocumentBuilderPool.getPool();
+			final DocumentBuilder builder = pool.borrow();
+			final Document doc;
+			try {
+				doc = builder.parse(new ByteArrayInputStream(content));
+			} finally {
+				pool.release(builder);
 			}
-			
-			fileNodes = this.getChildNodes(doc, "pmd-cpd");
-			if (fileNodes != null) {
-				CruiseControlCpdParser cpdparser = new CruiseControlCpdParser(fileNodes, items);
-				cpdparser.parse();
+			final List<IItem> entryItems = new ArrayList<IItem>();
+			parseSections(doc, entryItems, pm);
+			return entryItems;
+		}
+	}
+
+	private ChunkingCollection newChunks() {
+		return (chunkListener == null) ? null : new ChunkingCollection(items, chunkListener);
+	}
+
+	private void finish(final ChunkingCollection chunks) {
+		if (chunks == null) {
+			Fingerprint.assign(items);
+		} else {
+			chunks.flush();
+		}
+	}
+
+	/**
+	 * Reads a large local report in shards on several threads. If a shard
+	 * does not parse, e.g. because a closing tag in a comment or CDATA
+	 * section or an internal DTD subset misled the pre-scan, the findings
+	 * of the other shards are dropped and the report is left to the
+	 * single document read.
+	 * 
+	 * @param fXml the report
+	 * @param progress
+	 * @return false if the report could not be split or a shard failed,
+	 *         nothing was read then
+	 * @throws OperationCanceledException
+	 */
+	private boolean readSharded(final File fXml, final SubMonitor progress) {
+		final long lStart = System.nanoTime();
+		final ChunkingCollection chunks = newChunks();
+		final ShardedReportReader reader = new ShardedReportReader(parsers, suppressions, monitor);
+		try {
+			if (!reader.read(fXml, (chunks == null) ? items : chunks, progress)) {
+				return false;
 			}
-			
-			fileNodes = this.getChildNodes(doc, "checkstyle");
-			if (fileNodes != null) {
-				CruiseControlCheckstyleParser csparser = new CruiseControlCheckstyleParser(fileNodes, items);
-				csparser.parse();
+			finish(chunks);
+			bComplete = true;
+		} catch (IOException e) {
+			CinderLog.logErrorInfo("XIR:sharded read failed, reading " + fXml + " as one document", e);
+			if (chunks == null) {
+				items.clear();
+			} else {
+				chunks.discard();
 			}
-			
-		} catch (Exception e) {
-			CinderLog.logError(e);
+			return false;
 		}
+		lBytesRead = fXml.length();
+		lFetchNanos = reader.getScanNanos();
+		lParseNanos = System.nanoTime() - lStart - lFetchNanos;
+		checkCanceled();
+		return true;
 	}
 
-	private NodeList getChildNodes(final Document doc, String sName) {
+	private NodeList getChildNodes(final Document doc, String sName, ItemSource src) {
 		NodeList fileNodes = null;
+		if (!parsers.contains(src)) {
+			return fileNodes;
+		}
 		try {
 			fileNodes = doc.getElementsByTagName(sName).item(0).getChildNodes();
 		} catch (Exception e) {
@@ -146,6 +492,16 @@ public class XmlInputReader implements IInputHandler {
 		return false;
 	}
 
+	/**
+	 * Whether the last read got through the whole report. If the report
+	 * could not be fetched or parsed, the items are empty or partial and
+	 * must not replace the findings of the source.
+	 * @return
+	 */
+	public boolean isComplete() {
+		return bComplete;
+	}
+
 	/**
 	 * Shows a list of the items read from XML.
 	 * 
@@ -156,6 +512,30 @@ public class XmlInputReader implements IInputHandler {
 		return this.items;
 	}
 
+	/**
+	 * Returns the size of the report last read.
+	 * @return the bytes read
+	 */
+	public long getBytesRead() {
+		return lBytesRead;
+	}
+
+	/**
+	 * Returns the time spent reading the report into a document.
+	 * @return nsec
+	 */
+	public long getFetchNanos() {
+		return lFetchNanos;
+	}
+
+	/**
+	 * Returns the time spent extracting the findings from the document.
+	 * @return nsec
+	 */
+	public long getParseNanos() {
+		return lParseNanos;
+	}
+
 	/**
 	 * Shows the filename that was last accessed.
 	 * 
@@ -21,6 +21,7 @@ public abstract class AbstractCinderItem implements IItem {
 	protected int timestamp;
 	protected HashMap<String, String> details;
 	protected IResource resource;
+	protected ItemKey key;
 	
 	public static final ItemType DEFAULT_TYPE = ItemType.JAVA_PACKAGE;
 	public static final ItemSource DEFAULT_SOURCE = ItemSource.UNKNOWN;
@@ -107,6 +108,34 @@ public abstract class AbstractCinderItem implements IItem {
 		return this.details;
 	}
 	
+	@Override
+	public ItemKey getKey() {
+		if (this.key == null) {
+			this.key = Fingerprint.of(this);
+		}
+		return this.key;
+	}
+	
+	@Override
+	public String getFingerprint() {
+		return getKey().toString();
+	}
+	
+	public void setKey(ItemKey kFingerprint) {
+		this.key = kFingerprint;
+	}
+	
+	/**
+	 * Takes over the position and message of a re-ingested copy of this
+	 * finding, keeping status and timestamp.
+	 * @param other the finding with the same fingerprint
+	 */
+	public void updateFrom(IItem other) {
+		this.line = other.getLine();
+		this.offset = other.getOffset();
+		this.message = other.getMessage();
+	}
+	
 	public void setMessage(String msg) {
 		this.message = msg;
 	}
@@ -116,19 +145,8 @@ public abstract class AbstractCinderItem implements IItem {
 	}
 	
 	public static ItemType chooseType(final String type) {
-		ItemType itemtype;
-
-		if ("warning".equals(type)) {
-			itemtype = ItemType.TASK_WARN;
-		} else if ("error".equals(type)) {
-			itemtype = ItemType.TASK_ERROR;
-		} else if ("info".equals(type)) {
-			itemtype = ItemType.TASK_INFO;
-		} else {
-			itemtype = DEFAULT_TYPE;
-		}
-
-		return itemtype;
+		final ItemType itemtype = ItemType.getBySeverity(type);
+		return (itemtype == null) ? DEFAULT_TYPE : itemtype;
 	}
 	
 	public String toString() {
@@ -151,14 +169,18 @@ public abstract class AbstractCinderItem implements IItem {
 	
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + line;
-		result = prime * result
-				+ ((location == null) ? 0 : location.hashCode());
-		result = prime * result + ((name == null) ? 0 : name.hashCode());
-		result = prime * result + offset;
-		return result;
+		return getKey().hashCode();
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof IItem)) {
+			return false;
+		}
+		return getKey().equals(((IItem) obj).getKey());
 	}
 	
 	// For now, this is how we suppress a warning that we cannot fix
@@ -0,0 +1,417 @@
+package org.art_core.dev.cinder.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UTFDataFormatException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.art_core.dev.cinder.CinderLog;
+import org.art_core.dev.cinder.CinderPlugin;
+
+/**
+ * Append-only history of the findings of all ingested reports.
+ * Each ingestion appends one compact delta record per finding that
+ * appeared or disappeared, keyed by fingerprint and build timestamp.
+ * Rules and locations are written once into a string dictionary.
+ * The journal is replayed once into per-day aggregates, so trend
+ * queries never touch old reports.
+ * <p>
+ * The history tracks which findings are open, so a finding that is
+ * reported as added again, e.g. by the first ingestion after a restart,
+ * is not counted twice.
+ * <p>
+ * The journal is read and written on background jobs only, as it grows
+ * with every build. A record cut off by a crash is truncated before the
+ * next append, so later records are not lost behind it.
+ * @author Florian Anderiasch
+ *
+ */
+public final class FindingHistory {
+	// Singleton
+	private static FindingHistory history = new FindingHistory();
+	private static final String JOURNAL = "history.bin";
+
+	public static final long BUCKET_DAY = 24L * 60L * 60L * 1000L;
+
+	private static final byte REC_STRING = 'S';
+	private static final byte REC_DELTA = 'D';
+	// type, build, key, op, source, rule and location
+	private static final int DELTA_SIZE = 1 + 8 + 8 + 1 + 1 + 4 + 4;
+	public static final byte APPEARED = 1;
+	public static final byte DISAPPEARED = 2;
+
+	private boolean bLoaded;
+	// string dictionary of the journal
+	private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+	private final List<String> strings = new ArrayList<String>();
+	// aggregates: name -> bucket -> { appeared, disappeared }
+	private final Map<String, TreeMap<Long, int[]>> byRule = new HashMap<String, TreeMap<Long, int[]>>();
+	private final Map<String, TreeMap<Long, int[]>> byLocation = new HashMap<String, TreeMap<Long, int[]>>();
+	// build timestamp -> { appeared, disappeared }
+	private final TreeMap<Long, int[]> builds = new TreeMap<Long, int[]>();
+	private final Map<ItemKey, Long> firstSeen = new HashMap<ItemKey, Long>();
+	// findings that appeared and have not disappeared since
+	private final Set<ItemKey> open = new HashSet<ItemKey>();
+
+	private FindingHistory() {
+	}
+
+	/**
+	 * Return singleton instance.
+	 * @return
+	 */
+	public static FindingHistory getHistory() {
+		return history;
+	}
+
+	/**
+	 * Records the delta of one ingestion.
+	 * @param lBuild the build timestamp in msec
+	 * @param event the changes of the ingestion
+	 */
+	public synchronized void record(final long lBuild, final ItemManagerEvent event) {
+		load();
+		final IItem[] added = event.getItemsAdded();
+		final IItem[] removed = event.getItemsRemoved();
+		if (added.length == 0 && removed.length == 0) {
+			return;
+		}
+		final File fJournal = getJournal();
+		final long lGood = (fJournal == null) ? 0 : fJournal.length();
+		DataOutputStream out = null;
+		try {
+			if (fJournal != null) {
+				out = new DataOutputStream(new BufferedOutputStream(
+						new FileOutputStream(fJournal, true), 65536));
+			}
+			for (IItem item : added) {
+				append(out, lBuild, item, APPEARED);
+			}
+			for (IItem item : removed) {
+				append(out, lBuild, item, DISAPPEARED);
+			}
+			if (out != null) {
+				out.close();
+				out = null;
+			}
+		} catch (IOException e) {
+			CinderLog.logError(e);
+			// drop what was written of this delta, and what was counted
+			close(out);
+			out = null;
+			truncate(fJournal, lGood);
+			reset();
+		} finally {
+			close(out);
+		}
+	}
+
+	/**
+	 * Returns the number of open findings of a rule at the end of each
+	 * bucket in which it changed.
+	 * @param sRule the rule, e.g. a checkstyle source
+	 * @return open findings per bucket start
+	 */
+	public synchronized SortedMap<Long, Integer> getRuleTrend(final String sRule) {
+		load();
+		return cumulate(byRule.get(sRule));
+	}
+
+	/**
+	 * Returns the number of open findings of a file at the end of each
+	 * bucket in which it changed.
+	 * @param sLocation the location as given in the report
+	 * @return open findings per bucket start
+	 */
+	public synchronized SortedMap<Long, Integer> getLocationTrend(final String sLocation) {
+		load();
+		return cumulate(byLocation.get(sLocation));
+	}
+
+	/**
+	 * Returns the appeared and disappeared counts of every build.
+	 * @return { appeared, disappeared } per build timestamp
+	 */
+	public synchronized SortedMap<Long, int[]> getBuilds() {
+		load();
+		final SortedMap<Long, int[]> ret = new TreeMap<Long, int[]>();
+		for (Map.Entry<Long, int[]> entry : builds.entrySet()) {
+			ret.put(entry.getKey(), entry.getValue().clone());
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the build in which a finding was first seen.
+	 * @param key the fingerprint
+	 * @return the build timestamp or -1 if the finding is unknown
+	 */
+	public synchronized long getFirstSeen(final ItemKey key) {
+		load();
+		final Long lBuild = firstSeen.get(key);
+		return (lBuild == null) ? -1 : lBuild.longValue();
+	}
+
+	/**
+	 * Writes one delta record, defining its strings first if needed.
+	 * Findings that are already open or already gone are skipped.
+	 */
+	private void append(final DataOutputStream out, final long lBuild, final IItem item,
+			final byte bOp) throws IOException {
+		if (!isTransition(item.getKey(), bOp)) {
+			return;
+		}
+		final int iRule = intern(out, item.getName());
+		final int iLoc = intern(out, item.getLocation());
+		final long lKey = item.getKey().longValue();
+		if (out != null) {
+			out.writeByte(REC_DELTA);
+			out.writeLong(lBuild);
+			out.writeLong(lKey);
+			out.writeByte(bOp);
+			out.writeByte(item.getSource().ordinal());
+			out.writeInt(iRule);
+			out.writeInt(iLoc);
+		}
+		aggregate(lBuild, lKey, bOp, iRule, iLoc);
+	}
+
+	/**
+	 * Whether a delta really opens or closes a finding, updating the open
+	 * findings if it does.
+	 */
+	private boolean isTransition(final ItemKey key, final byte bOp) {
+		if (bOp == APPEARED) {
+			return open.add(key);
+		}
+		return open.remove(key);
+	}
+
+	private int intern(final DataOutputStream out, final String sValue) throws IOException {
+		final String s = (sValue == null) ? "" : sValue;
+		final Integer iId = stringIds.get(s);
+		if (iId != null) {
+			return iId.intValue();
+		}
+		final int iNew = strings.size();
+		if (out != null) {
+			out.writeByte(REC_STRING);
+			out.writeInt(iNew);
+			out.writeUTF(s);
+		}
+		define(iNew, s);
+		return iNew;
+	}
+
+	private void define(final int iId, final String s) {
+		while (strings.size() <= iId) {
+			strings.add(null);
+		}
+		strings.set(iId, s);
+		stringIds.put(s, Integer.valueOf(iId));
+	}
+
+	private void aggregate(final long lBuild, final long lKey, final byte bOp,
+			final int iRule, final int iLoc) {
+		final int iSlot = (bOp == APPEARED) ? 0 : 1;
+		final Long lBucket = Long.valueOf(lBuild - (lBuild % BUCKET_DAY));
+		count(byRule, strings.get(iRule), lBucket, iSlot);
+		count(byLocation, strings.get(iLoc), lBucket, iSlot);
+
+		final Long lBuildKey = Long.valueOf(lBuild);
+		int[] counts = builds.get(lBuildKey);
+		if (counts == null) {
+			counts = new int[2];
+			builds.put(lBuildKey, counts);
+		}
+		counts[iSlot]++;
+
+		if (bOp == APPEARED) {
+			final ItemKey key = new ItemKey(lKey);
+			if (!firstSeen.containsKey(key)) {
+				firstSeen.put(key, lBuildKey);
+			}
+		}
+	}
+
+	private static void count(final Map<String, TreeMap<Long, int[]>> index, final String sName,
+			final Long lBucket, final int iSlot) {
+		TreeMap<Long, int[]> buckets = index.get(sName);
+		if (buckets == null) {
+			buckets = new TreeMap<Long, int[]>();
+			index.put(sName, buckets);
+		}
+		int[] counts = buckets.get(lBucket);
+		if (counts == null) {
+			counts = new int[2];
+			buckets.put(lBucket, counts);
+		}
+		counts[iSlot]++;
+	}
+
+	private static SortedMap<Long, Integer> cumulate(final TreeMap<Long, int[]> buckets) {
+		if (buckets == null) {
+			return Collections.unmodifiableSortedMap(new TreeMap<Long, Integer>());
+		}
+		final SortedMap<Long, Integer> ret = new TreeMap<Long, Integer>();
+		int iOpen = 0;
+		for (Map.Entry<Long, int[]> entry : buckets.entrySet()) {
+			iOpen += entry.getValue()[0] - entry.getValue()[1];
+			ret.put(entry.getKey(), Integer.valueOf(iOpen));
+		}
+		return ret;
+	}
+
+	/**
+	 * Forgets the aggregates, so that the next call replays the journal.
+	 */
+	private void reset() {
+		bLoaded = false;
+		stringIds.clear();
+		strings.clear();
+		byRule.clear();
+		byLocation.clear();
+		builds.clear();
+		firstSeen.clear();
+		open.clear();
+	}
+
+	/**
+	 * Replays the journal once into the aggregates. A truncated or
+	 * corrupt record and everything after it is cut off the journal.
+	 */
+	private void load() {
+		if (bLoaded) {
+			return;
+		}
+		bLoaded = true;
+		final File fJournal = getJournal();
+		if (fJournal == null || !fJournal.exists()) {
+			return;
+		}
+		// the end of the last complete record
+		long lGood = 0;
+		boolean bDamaged = false;
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(fJournal), 65536));
+			while (true) {
+				final byte bType;
+				try {
+					bType = in.readByte();
+				} catch (EOFException e) {
+					break;
+				}
+				if (bType == REC_STRING) {
+					final int iId = in.readInt();
+					final String s = in.readUTF();
+					define(iId, s);
+					lGood += 1 + 4 + 2 + getUtfLength(s);
+				} else if (bType == REC_DELTA) {
+					final long lBuild = in.readLong();
+					final long lKey = in.readLong();
+					final byte bOp = in.readByte();
+					in.readByte(); // source, not aggregated yet
+					final int iRule = in.readInt();
+					final int iLoc = in.readInt();
+					// journals written before the open findings were
+					// tracked may repeat a finding
+					if (isTransition(new ItemKey(lKey), bOp)) {
+						aggregate(lBuild, lKey, bOp, iRule, iLoc);
+					}
+					lGood += DELTA_SIZE;
+				} else {
+					CinderLog.logInfo("FH:corrupt history journal, dropping the rest");
+					bDamaged = true;
+					break;
+				}
+			}
+		} catch (EOFException e) {
+			CinderLog.logInfo("FH:truncated history journal, dropping the partial record");
+			bDamaged = true;
+		} catch (UTFDataFormatException e) {
+			CinderLog.logInfo("FH:corrupt history journal, dropping the rest");
+			bDamaged = true;
+		} catch (IOException e) {
+			CinderLog.logError(e);
+		} finally {
+			close(in);
+		}
+		if (bDamaged) {
+			truncate(fJournal, lGood);
+		}
+	}
+
+	/**
+	 * Cuts the journal off after its last complete record, so appends
+	 * start at a record boundary.
+	 */
+	private static void truncate(final File fJournal, final long lLength) {
+		if (fJournal == null || !fJournal.exists()) {
+			return;
+		}
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(fJournal, "rw");
+			raf.setLength(lLength);
+		} catch (IOException e) {
+			CinderLog.logError(e);
+		} finally {
+			close(raf);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes writeUTF writes for a string, without
+	 * the length prefix.
+	 */
+	private static int getUtfLength(final String s) {
+		int iLength = 0;
+		for (int i = 0; i < s.length(); i++) {
+			final char c = s.charAt(i);
+			if (c >= 0x0001 && c <= 0x007F) {
+				iLength++;
+			} else if (c <= 0x07FF) {
+				iLength += 2;
+			} else {
+				iLength += 3;
+			}
+		}
+		return iLength;
+	}
+
+	private File getJournal() {
+		final CinderPlugin plugin = CinderPlugin.getDefault();
+		if (plugin == null) {
+			return null;
+		}
+		return plugin.getStateLocation().append(JOURNAL).toFile();
+	}
+
+	private static void close(final Closeable stream) {
+		if (stream != null) {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				CinderLog.logErrorInfo("FH:close", e);
+			}
+		}
+	}
+}
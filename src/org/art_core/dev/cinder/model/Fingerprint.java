@@ -0,0 +1,130 @@
+package org.art_core.dev.cinder.model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Content based identity of findings. A fingerprint is built from the
+ * source, the rule, the location and the normalized message of a finding
+ * plus its ordinal among identical findings in the same file. Line and
+ * offset are not part of it, so a finding keeps its fingerprint when
+ * edits above it shift it to another line.
+ * @author Florian Anderiasch
+ *
+ */
+public final class Fingerprint {
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private Fingerprint() {}
+
+	/**
+	 * Assigns fingerprints to freshly parsed items, counting ordinals in
+	 * the order of the report.
+	 * @param items the items of one report
+	 */
+	public static void assign(final Collection<IItem> items) {
+		final Assigner assigner = new Assigner();
+		for (IItem item : items) {
+			assigner.assign(item);
+		}
+	}
+
+	/**
+	 * Assigns fingerprints one item at a time, for items that are
+	 * published before the whole report is parsed.
+	 */
+	public static final class Assigner {
+		private final Map<ItemKey, int[]> ordinals = new HashMap<ItemKey, int[]>();
+
+		/**
+		 * Assigns the fingerprint of the next item of the report.
+		 * @param item
+		 */
+		public void assign(final IItem item) {
+			if (!(item instanceof AbstractCinderItem)) {
+				return;
+			}
+			final ItemKey base = new ItemKey(base(item));
+			int[] count = ordinals.get(base);
+			if (count == null) {
+				count = new int[1];
+				ordinals.put(base, count);
+			}
+			((AbstractCinderItem) item).setKey(
+					new ItemKey(mix(base.longValue(), count[0]++)));
+		}
+	}
+
+	/**
+	 * Computes the fingerprint of a single item, assuming it is the first
+	 * of its kind in its file.
+	 * @param item
+	 * @return the fingerprint
+	 */
+	public static ItemKey of(final IItem item) {
+		return new ItemKey(mix(base(item), 0));
+	}
+
+	/**
+	 * Hashes everything but the ordinal.
+	 */
+	private static long base(final IItem item) {
+		long h = FNV_OFFSET;
+		h = hash(h, item.getSource().name());
+		h = hash(h, item.getName());
+		h = hash(h, item.getLocation());
+		h = hashNormalized(h, item.getMessage());
+		return h;
+	}
+
+	private static long mix(final long h, final int iOrdinal) {
+		return (h ^ iOrdinal) * FNV_PRIME;
+	}
+
+	private static long hash(long h, final String s) {
+		if (s != null) {
+			for (int i = 0; i < s.length(); i++) {
+				h = (h ^ s.charAt(i)) * FNV_PRIME;
+			}
+		}
+		// field separator
+		return (h ^ 0x1f) * FNV_PRIME;
+	}
+
+	/**
+	 * Hashes a message with collapsed whitespace and every run of digits
+	 * replaced by a single '#', so embedded line numbers do not matter.
+	 */
+	private static long hashNormalized(long h, final String s) {
+		if (s != null) {
+			boolean bSpace = false;
+			boolean bDigit = false;
+			boolean bAny = false;
+			for (int i = 0; i < s.length(); i++) {
+				final char c = s.charAt(i);
+				if (Character.isWhitespace(c)) {
+					bSpace = true;
+					bDigit = false;
+					continue;
+				}
+				if (bSpace && bAny) {
+					h = (h ^ ' ') * FNV_PRIME;
+				}
+				bSpace = false;
+				bAny = true;
+				if (c >= '0' && c <= '9') {
+					if (!bDigit) {
+						h = (h ^ '#') * FNV_PRIME;
+						bDigit = true;
+					}
+					continue;
+				}
+				bDigit = false;
+				h = (h ^ c) * FNV_PRIME;
+			}
+		}
+		return (h ^ 0x1f) * FNV_PRIME;
+	}
+}
@@ -0,0 +1,285 @@
+package org.art_core.dev.cinder.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.art_core.dev.cinder.CinderLog;
+import org.art_core.dev.cinder.CinderPlugin;
+
+/**
+ * The findings evicted by the ItemBudget. They are written to a snapshot
+ * file in the plug-in state location; only their key, rank and file
+ * offset stay on the heap, so they can be paged back in priority order.
+ * @author Florian Anderiasch
+ *
+ */
+class HiddenStore {
+	private static final String SNAPSHOT = "hidden.bin";
+	// writeUTF is limited to 64k bytes
+	private static final int MAX_CHARS = 16384;
+
+	private final Map<ItemKey, Entry> entries = new HashMap<ItemKey, Entry>();
+	private long lLength;
+	private int iRecords;
+
+	/**
+	 * The position of a hidden finding in the snapshot.
+	 */
+	private static final class Entry {
+		private final ItemKey key;
+		private final long lOffset;
+		private final int iRank;
+		private final int iTimestamp;
+
+		Entry(final ItemKey key, final long lOffset, final IItem item) {
+			this.key = key;
+			this.lOffset = lOffset;
+			this.iRank = ItemBudget.getRank(item);
+			this.iTimestamp = item.getTimestamp();
+		}
+	}
+
+	// highest priority first, the reverse of the eviction order
+	private static final Comparator<Entry> PAGE_ORDER = new Comparator<Entry>() {
+		@Override
+		public int compare(final Entry o1, final Entry o2) {
+			if (o1.iRank != o2.iRank) {
+				return o2.iRank - o1.iRank;
+			}
+			return o1.iTimestamp > o2.iTimestamp ? -1 : (o1.iTimestamp == o2.iTimestamp ? 0 : 1);
+		}
+	};
+
+	int size() {
+		return entries.size();
+	}
+
+	boolean contains(final ItemKey key) {
+		return entries.containsKey(key);
+	}
+
+	/**
+	 * Appends evicted findings to the snapshot.
+	 * @param items
+	 */
+	void addAll(final Collection<IItem> items) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(items.size() * 256);
+		final DataOutputStream out = new DataOutputStream(bytes);
+		final List<Entry> added = new ArrayList<Entry>(items.size());
+		try {
+			for (IItem item : items) {
+				added.add(new Entry(item.getKey(), lLength + out.size(), item));
+				write(out, item);
+			}
+			out.flush();
+		} catch (IOException e) {
+			CinderLog.logError(e);
+			return;
+		}
+		if (!append(bytes.toByteArray())) {
+			return;
+		}
+		for (Entry entry : added) {
+			entries.put(entry.key, entry);
+		}
+		lLength += bytes.size();
+		iRecords += added.size();
+	}
+
+	void remove(final ItemKey key) {
+		entries.remove(key);
+	}
+
+	/**
+	 * Reads back the hidden findings of highest priority and forgets them.
+	 * @param iCount the maximum number of findings
+	 * @return the findings
+	 */
+	List<IItem> take(final int iCount) {
+		final List<Entry> sorted = new ArrayList<Entry>(entries.values());
+		Collections.sort(sorted, PAGE_ORDER);
+		final List<IItem> ret = read(sorted.subList(0, Math.min(iCount, sorted.size())));
+		for (IItem item : ret) {
+			entries.remove(item.getKey());
+		}
+		shrink();
+		return ret;
+	}
+
+	/**
+	 * Reads back the given hidden findings and forgets them, e.g. because
+	 * they left their report. Keys that are not hidden are ignored.
+	 * @param keys
+	 * @return the findings
+	 */
+	List<IItem> takeAll(final Collection<ItemKey> keys) {
+		final List<Entry> list = new ArrayList<Entry>(keys.size());
+		for (ItemKey key : keys) {
+			final Entry entry = entries.remove(key);
+			if (entry != null) {
+				list.add(entry);
+			}
+		}
+		final List<IItem> ret = read(list);
+		shrink();
+		return ret;
+	}
+
+	/**
+	 * Deletes or compacts the snapshot once most of its records are stale.
+	 */
+	private void shrink() {
+		if (entries.isEmpty()) {
+			clear();
+		} else if (iRecords > 2 * entries.size() + 1000) {
+			compact();
+		}
+	}
+
+	private List<IItem> read(final List<Entry> list) {
+		final List<IItem> ret = new ArrayList<IItem>(list.size());
+		final File fSnapshot = getSnapshot();
+		if (fSnapshot == null || list.isEmpty()) {
+			return ret;
+		}
+		RandomAccessFile in = null;
+		try {
+			in = new RandomAccessFile(fSnapshot, "r");
+			for (Entry entry : list) {
+				in.seek(entry.lOffset);
+				ret.add(read(in));
+			}
+		} catch (IOException e) {
+			CinderLog.logError(e);
+		} finally {
+			close(in);
+		}
+		return ret;
+	}
+
+	/**
+	 * Forgets all hidden findings.
+	 */
+	void clear() {
+		entries.clear();
+		lLength = 0;
+		iRecords = 0;
+		final File fSnapshot = getSnapshot();
+		if (fSnapshot != null && fSnapshot.exists() && !fSnapshot.delete()) {
+			CinderLog.logInfo("HS:could not delete " + fSnapshot);
+		}
+	}
+
+	/**
+	 * Rewrites the snapshot with the findings still hidden.
+	 */
+	private void compact() {
+		final List<IItem> live = read(new ArrayList<Entry>(entries.values()));
+		clear();
+		if (!live.isEmpty()) {
+			addAll(live);
+		}
+	}
+
+	private boolean append(final byte[] data) {
+		final File fSnapshot = getSnapshot();
+		if (fSnapshot == null) {
+			return false;
+		}
+		RandomAccessFile out = null;
+		try {
+			out = new RandomAccessFile(fSnapshot, "rw");
+			if (lLength == 0) {
+				out.setLength(0);
+			}
+			out.seek(lLength);
+			out.write(data);
+			return true;
+		} catch (IOException e) {
+			CinderLog.logError(e);
+			return false;
+		} finally {
+			close(out);
+		}
+	}
+
+	private static void write(final DataOutputStream out, final IItem item) throws IOException {
+		out.writeLong(item.getKey().longValue());
+		out.writeByte(item.getSource().ordinal());
+		out.writeByte(item.getStatus().ordinal());
+		out.writeShort(item.getType().getPostion());
+		out.writeInt(item.getLine());
+		out.writeInt(item.getOffset());
+		out.writeInt(item.getTimestamp());
+		writeString(out, item.getName());
+		writeString(out, item.getLocation());
+		writeString(out, item.getMessage());
+		final Map<String, String> details = item.getDetails();
+		out.writeShort((details == null) ? 0 : details.size());
+		if (details != null) {
+			for (Map.Entry<String, String> detail : details.entrySet()) {
+				writeString(out, detail.getKey());
+				writeString(out, detail.getValue());
+			}
+		}
+	}
+
+	private static IItem read(final RandomAccessFile in) throws IOException {
+		final ItemKey key = new ItemKey(in.readLong());
+		final ItemSource src = ItemSource.values()[in.readByte()];
+		final ItemStatus status = ItemStatus.values()[in.readByte()];
+		final ItemType type = ItemType.getByPosition(in.readShort());
+		final int iLine = in.readInt();
+		final int iOffset = in.readInt();
+		final int iTimestamp = in.readInt();
+		final PropertiesItem item = new PropertiesItem(in.readUTF(), in.readUTF(), type, iLine, iOffset);
+		item.setMessage(in.readUTF());
+		final int iDetails = in.readShort();
+		for (int i = 0; i < iDetails; i++) {
+			item.setDetail(in.readUTF(), in.readUTF());
+		}
+		item.setSource(src);
+		item.setStatus(status);
+		item.setTimestamp(iTimestamp);
+		item.setKey(key);
+		return item;
+	}
+
+	private static void writeString(final DataOutputStream out, final String s) throws IOException {
+		if (s == null) {
+			out.writeUTF("");
+		} else if (s.length() > MAX_CHARS) {
+			out.writeUTF(s.substring(0, MAX_CHARS));
+		} else {
+			out.writeUTF(s);
+		}
+	}
+
+	private File getSnapshot() {
+		final CinderPlugin plugin = CinderPlugin.getDefault();
+		if (plugin == null) {
+			return null;
+		}
+		return plugin.getStateLocation().append(SNAPSHOT).toFile();
+	}
+
+	private static void close(final RandomAccessFile file) {
+		if (file != null) {
+			try {
+				file.close();
+			} catch (IOException e) {
+				CinderLog.logErrorInfo("HS:close", e);
+			}
+		}
+	}
+}
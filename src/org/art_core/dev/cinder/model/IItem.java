@@ -28,6 +28,10 @@ public interface IItem extends IAdaptable {
 	
 	ItemType getType();
 	
+	ItemKey getKey();
+	
+	String getFingerprint();
+	
 	void setStatus(ItemStatus status);
 
 	IItem[] NONE = new IItem[] {};
@@ -0,0 +1,92 @@
+package org.art_core.dev.cinder.model;
+
+import java.util.Comparator;
+
+/**
+ * Upper bounds for the findings held by the ItemManager, and the order
+ * in which findings are evicted once a bound is exceeded: lower severity
+ * first, then handled before new, then oldest first.
+ * @author Florian Anderiasch
+ *
+ */
+public class ItemBudget {
+	public static final ItemBudget UNLIMITED = new ItemBudget(0, 0);
+
+	private final int maxItems;
+	private final long maxBytes;
+
+	/**
+	 * Evicts INFO before WARN before ERROR, DONE and WONTFIX before NEW,
+	 * then the oldest timestamp.
+	 */
+	public static final Comparator<IItem> EVICTION_ORDER = new Comparator<IItem>() {
+		@Override
+		public int compare(final IItem o1, final IItem o2) {
+			int iDiff = getRank(o1) - getRank(o2);
+			if (iDiff == 0) {
+				iDiff = o1.getTimestamp() < o2.getTimestamp() ? -1
+						: (o1.getTimestamp() == o2.getTimestamp() ? 0 : 1);
+			}
+			return iDiff;
+		}
+	};
+
+	/**
+	 * Constructor.
+	 * @param iMaxItems the maximum number of findings, 0 for no limit
+	 * @param lMaxBytes the maximum estimated heap in bytes, 0 for no limit
+	 */
+	public ItemBudget(final int iMaxItems, final long lMaxBytes) {
+		this.maxItems = iMaxItems;
+		this.maxBytes = lMaxBytes;
+	}
+
+	public int getMaxItems() {
+		return maxItems;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Whether the given amount of findings exceeds this budget.
+	 * @param iItems the number of findings
+	 * @param lBytes their estimated heap
+	 * @return
+	 */
+	public boolean isExceeded(final int iItems, final long lBytes) {
+		return (maxItems > 0 && iItems > maxItems) || (maxBytes > 0 && lBytes > maxBytes);
+	}
+
+	/**
+	 * Returns the rank of a finding, lowest is evicted first.
+	 * @param item
+	 * @return
+	 */
+	public static int getRank(final IItem item) {
+		final int iSeverity;
+		if (item.getType() == ItemType.TASK_INFO) {
+			iSeverity = 0;
+		} else if (item.getType() == ItemType.TASK_ERROR) {
+			iSeverity = 2;
+		} else {
+			iSeverity = 1;
+		}
+		return iSeverity * 2 + (item.getStatus() == ItemStatus.NEW ? 1 : 0);
+	}
+
+	/**
+	 * Estimates the heap used by an item: object headers and fields plus
+	 * its strings, which dominate.
+	 * @param item
+	 * @return the estimate in bytes
+	 */
+	public static long estimateSize(final IItem item) {
+		return 96 + sizeOf(item.getName()) + sizeOf(item.getMessage()) + sizeOf(item.getLocation());
+	}
+
+	private static long sizeOf(final String s) {
+		return (s == null) ? 0 : 40 + 2L * s.length();
+	}
+}
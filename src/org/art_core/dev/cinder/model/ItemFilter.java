@@ -0,0 +1,68 @@
+package org.art_core.dev.cinder.model;
+
+/**
+ * Criteria for selecting items through the indexes of the ItemManager.
+ * Criteria that are <code>null</code> or empty match every item.
+ * @author Florian Anderiasch
+ *
+ */
+public class ItemFilter {
+	private ItemSource source;
+	private ItemType type;
+	private ItemStatus status;
+	private String locationPrefix;
+	private String text;
+
+	public ItemSource getSource() {
+		return source;
+	}
+
+	public void setSource(ItemSource src) {
+		this.source = src;
+	}
+
+	public ItemType getType() {
+		return type;
+	}
+
+	public void setType(ItemType ty) {
+		this.type = ty;
+	}
+
+	public ItemStatus getStatus() {
+		return status;
+	}
+
+	public void setStatus(ItemStatus st) {
+		this.status = st;
+	}
+
+	public String getLocationPrefix() {
+		return locationPrefix;
+	}
+
+	public void setLocationPrefix(String sPrefix) {
+		this.locationPrefix = sPrefix;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public void setText(String sText) {
+		this.text = sText;
+	}
+
+	/**
+	 * Whether no criterion is set.
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return source == null && type == null && status == null
+				&& isBlank(locationPrefix) && isBlank(text);
+	}
+
+	static boolean isBlank(final String s) {
+		return s == null || s.trim().length() == 0;
+	}
+}
@@ -0,0 +1,67 @@
+package org.art_core.dev.cinder.model;
+
+/**
+ * Immutable identity of a finding, wrapping its 64 bit fingerprint.
+ * The hash is computed once, so set and map operations on items never
+ * rehash their strings.
+ * @author Florian Anderiasch
+ *
+ */
+public final class ItemKey {
+	private final long lValue;
+	private final int iHash;
+
+	public ItemKey(final long lValue) {
+		this.lValue = lValue;
+		this.iHash = (int) (lValue ^ (lValue >>> 32));
+	}
+
+	/**
+	 * Parses the string form of a key.
+	 * @param sKey 16 hex digits
+	 * @return the key
+	 * @throws NumberFormatException if the string is no key
+	 */
+	public static ItemKey valueOf(final String sKey) {
+		if (sKey.length() != 16) {
+			throw new NumberFormatException(sKey);
+		}
+		final long lHigh = Long.parseLong(sKey.substring(0, 8), 16);
+		final long lLow = Long.parseLong(sKey.substring(8), 16);
+		return new ItemKey((lHigh << 32) | lLow);
+	}
+
+	public long longValue() {
+		return lValue;
+	}
+
+	@Override
+	public int hashCode() {
+		return iHash;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ItemKey)) {
+			return false;
+		}
+		return lValue == ((ItemKey) obj).lValue;
+	}
+
+	/**
+	 * Returns the key as 16 hex digits.
+	 */
+	@Override
+	public String toString() {
+		final String sHex = Long.toHexString(lValue);
+		final StringBuilder str = new StringBuilder(16);
+		for (int i = sHex.length(); i < 16; i++) {
+			str.append('0');
+		}
+		str.append(sHex);
+		return str.toString();
+	}
+}
@@ -1,17 +1,52 @@
 package org.art_core.dev.cinder.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.art_core.dev.cinder.CinderLog;
 
 public final class ItemManager {
 	// Singleton
 	private static ItemManager manager = new ItemManager();
-	private HashSet<IItem> items;
+	// all items, keyed by their fingerprint
+	private final Map<ItemKey, IItem> items;
+	// per-location index, keyed by the location as given in the report
+	private final TreeMap<String, Set<ItemKey>> byLocation = new TreeMap<String, Set<ItemKey>>();
+	// fingerprints contributed by each source, its partition
+	private final Map<String, Set<ItemKey>> byPartition = new HashMap<String, Set<ItemKey>>();
+	// fingerprints shown from chunks of reports that are still being parsed
+	private final Map<String, Set<ItemKey>> provisional = new HashMap<String, Set<ItemKey>>();
+	// secondary indexes for filtering
+	private final Map<ItemSource, Set<ItemKey>> bySource = new EnumMap<ItemSource, Set<ItemKey>>(ItemSource.class);
+	private final Map<ItemStatus, Set<ItemKey>> byStatus = new EnumMap<ItemStatus, Set<ItemKey>>(ItemStatus.class);
+	private final Map<ItemType, Set<ItemKey>> byType = new HashMap<ItemType, Set<ItemKey>>();
+	// lower case tokens of name and message
+	private final TreeMap<String, Set<ItemKey>> byToken = new TreeMap<String, Set<ItemKey>>();
 	private final List<ItemManagerListener> listeners = new ArrayList<ItemManagerListener>();
+	// findings evicted by the budget
+	private final HiddenStore hidden = new HiddenStore();
+	private ItemBudget budget = ItemBudget.UNLIMITED;
+	// findings paged back by the user on top of the budget
+	private int iAllowance;
+	private long lEstimatedBytes;
+	// changes whenever a location gains its first or loses its last item
+	private int iLocationRevision;
 
 	private ItemManager() {
-		this.items = new HashSet<IItem>();
+		this.items = new LinkedHashMap<ItemKey, IItem>();
 	}
 
 	/**
@@ -27,7 +62,171 @@ public final class ItemManager {
 	 * @return
 	 */
 	public IItem[] getItems() {
-		return items.toArray(new IItem[items.size()]);
+		return items.values().toArray(new IItem[items.size()]);
+	}
+
+	/**
+	 * Return all distinct locations that have items.
+	 * @return
+	 */
+	public Collection<String> getLocations() {
+		return new ArrayList<String>(byLocation.keySet());
+	}
+
+	/**
+	 * Return a counter that changes whenever the set of locations changes,
+	 * so indexes derived from the locations know when to rebuild.
+	 * @return
+	 */
+	public int getLocationRevision() {
+		return iLocationRevision;
+	}
+
+	/**
+	 * Return all items of a location.
+	 * @param sLocation the location as given in the report
+	 * @return
+	 */
+	public Collection<IItem> getItemsByLocation(final String sLocation) {
+		final Set<ItemKey> set = byLocation.get(sLocation);
+		if (set == null) {
+			return Collections.emptyList();
+		}
+		final List<IItem> list = new ArrayList<IItem>(set.size());
+		for (ItemKey kFingerprint : set) {
+			list.add(items.get(kFingerprint));
+		}
+		return list;
+	}
+
+	/**
+	 * Return all items of a source.
+	 * @param src
+	 * @return
+	 */
+	public Collection<IItem> getItemsBySource(final ItemSource src) {
+		final Set<ItemKey> set = lookup(bySource, src);
+		final List<IItem> list = new ArrayList<IItem>(set.size());
+		for (ItemKey kFingerprint : set) {
+			list.add(items.get(kFingerprint));
+		}
+		return list;
+	}
+
+	/**
+	 * Return the ids of all partitions, one per source or report.
+	 * @return
+	 */
+	public Collection<String> getPartitions() {
+		return new ArrayList<String>(byPartition.keySet());
+	}
+
+	/**
+	 * Return all items of a partition.
+	 * @param sPartition the source id or report name
+	 * @return
+	 */
+	public Collection<IItem> getItemsByPartition(final String sPartition) {
+		final Set<ItemKey> set = byPartition.get(sPartition);
+		if (set == null) {
+			return Collections.emptyList();
+		}
+		final List<IItem> list = new ArrayList<IItem>(set.size());
+		for (ItemKey kFingerprint : set) {
+			final IItem item = items.get(kFingerprint);
+			if (item != null) {
+				list.add(item);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Sets the bounds for the findings held in memory and evicts
+	 * findings if they are exceeded.
+	 * @param newBudget
+	 */
+	public void setBudget(final ItemBudget newBudget) {
+		this.budget = newBudget;
+		final List<IItem> evicted = enforceBudget();
+		if (!evicted.isEmpty()) {
+			fireItemsChanged(new ItemManagerEvent(this, IItem.NONE,
+					evicted.toArray(new IItem[evicted.size()])));
+		}
+	}
+
+	/**
+	 * Return the number of findings evicted by the budget.
+	 * @return
+	 */
+	public int getHiddenCount() {
+		return hidden.size();
+	}
+
+	/**
+	 * Pages evicted findings back in, most important first. They are
+	 * kept on top of the budget until the next reset.
+	 * @param iCount the maximum number of findings
+	 * @return the findings shown again
+	 */
+	public IItem[] showHidden(final int iCount) {
+		final List<IItem> list = hidden.take(iCount);
+		iAllowance += list.size();
+		for (IItem item : list) {
+			addItem(item);
+		}
+		final IItem[] shown = list.toArray(new IItem[list.size()]);
+		if (shown.length > 0) {
+			fireItemsChanged(new ItemManagerEvent(this, shown, IItem.NONE));
+		}
+		return shown;
+	}
+
+	/**
+	 * Selects the items matching a filter by intersecting the indexes,
+	 * starting with the smallest candidate set.
+	 * @param filter the criteria
+	 * @return the matching items
+	 */
+	public Set<IItem> select(final ItemFilter filter) {
+		final List<Set<ItemKey>> candidates = new ArrayList<Set<ItemKey>>();
+		if (filter.getSource() != null) {
+			candidates.add(lookup(bySource, filter.getSource()));
+		}
+		if (filter.getType() != null) {
+			candidates.add(lookup(byType, filter.getType()));
+		}
+		if (filter.getStatus() != null) {
+			candidates.add(lookup(byStatus, filter.getStatus()));
+		}
+		if (!ItemFilter.isBlank(filter.getLocationPrefix())) {
+			candidates.add(union(prefixRange(byLocation, filter.getLocationPrefix().trim())));
+		}
+		if (!ItemFilter.isBlank(filter.getText())) {
+			for (String sToken : tokenize(filter.getText())) {
+				candidates.add(union(prefixRange(byToken, sToken)));
+			}
+		}
+
+		final Set<IItem> ret = new HashSet<IItem>();
+		if (candidates.isEmpty()) {
+			ret.addAll(items.values());
+			return ret;
+		}
+		Collections.sort(candidates, new Comparator<Set<ItemKey>>() {
+			@Override
+			public int compare(final Set<ItemKey> o1, final Set<ItemKey> o2) {
+				return o1.size() - o2.size();
+			}
+		});
+		final Set<ItemKey> keys = new HashSet<ItemKey>(candidates.get(0));
+		for (int i = 1; i < candidates.size() && !keys.isEmpty(); i++) {
+			keys.retainAll(candidates.get(i));
+		}
+		for (ItemKey kFingerprint : keys) {
+			ret.add(items.get(kFingerprint));
+		}
+		return ret;
 	}
 
 	/**
@@ -35,18 +234,420 @@ public final class ItemManager {
 	 */
 	public void reset() {
 		items.clear();
+		byLocation.clear();
+		byPartition.clear();
+		bySource.clear();
+		byStatus.clear();
+		byType.clear();
+		byToken.clear();
+		provisional.clear();
+		hidden.clear();
+		iLocationRevision++;
+		iAllowance = 0;
+		lEstimatedBytes = 0;
 	}
 
 	/**
-	 * Add an item.
+	 * Add an item. Items with a known fingerprint are ignored.
+	 * Use {@link #addAll(Collection)} for many items, so the budget is
+	 * enforced only once.
 	 * @param iiNewItem
 	 */
 	public void add(final IItem iiNewItem) {
-		items.add(iiNewItem);
+		addAll(Collections.singletonList(iiNewItem));
 	}
-	
+
+	/**
+	 * Add many items, enforcing the budget once at the end.
+	 * Items with a known fingerprint are ignored.
+	 * @param iiNewItems
+	 */
+	public void addAll(final Collection<IItem> iiNewItems) {
+		boolean bAdded = false;
+		for (IItem iiNewItem : iiNewItems) {
+			bAdded |= addItem(iiNewItem);
+		}
+		if (bAdded) {
+			enforceBudget();
+		}
+	}
+
+	private boolean addItem(final IItem iiNewItem) {
+		final ItemKey kFingerprint = iiNewItem.getKey();
+		if (items.containsKey(kFingerprint) || hidden.contains(kFingerprint)) {
+			return false;
+		}
+		final ItemStatus status = StatusStore.getStore().get(iiNewItem.getFingerprint());
+		if (status != null) {
+			iiNewItem.setStatus(status);
+		}
+		items.put(kFingerprint, iiNewItem);
+		if (!byLocation.containsKey(iiNewItem.getLocation())) {
+			iLocationRevision++;
+		}
+		index(byLocation, iiNewItem.getLocation(), kFingerprint);
+		index(bySource, iiNewItem.getSource(), kFingerprint);
+		index(byStatus, iiNewItem.getStatus(), kFingerprint);
+		index(byType, iiNewItem.getType(), kFingerprint);
+		indexTokens(iiNewItem, kFingerprint);
+		lEstimatedBytes += ItemBudget.estimateSize(iiNewItem);
+		return true;
+	}
+
 	public void remove(final IItem iiItem) {
-		items.remove(iiItem);
+		final ItemKey kFingerprint = iiItem.getKey();
+		hidden.remove(kFingerprint);
+		if (unindexItem(iiItem)) {
+			for (Set<ItemKey> report : byPartition.values()) {
+				report.remove(kFingerprint);
+			}
+			for (Set<ItemKey> report : provisional.values()) {
+				report.remove(kFingerprint);
+			}
+		}
+	}
+
+	/**
+	 * Removes an item from all indexes but its partitions.
+	 */
+	private boolean unindexItem(final IItem iiItem) {
+		final ItemKey kFingerprint = iiItem.getKey();
+		if (items.remove(kFingerprint) == null) {
+			return false;
+		}
+		unindex(byLocation, iiItem.getLocation(), kFingerprint);
+		if (!byLocation.containsKey(iiItem.getLocation())) {
+			iLocationRevision++;
+		}
+		unindex(bySource, iiItem.getSource(), kFingerprint);
+		unindex(byStatus, iiItem.getStatus(), kFingerprint);
+		unindex(byType, iiItem.getType(), kFingerprint);
+		unindexTokens(iiItem, kFingerprint);
+		lEstimatedBytes -= ItemBudget.estimateSize(iiItem);
+		return true;
+	}
+
+	/**
+	 * Evicts the findings of lowest priority until the budget is met.
+	 * Evicted findings stay in their partition, so a re-ingestion does
+	 * not report them as disappeared.
+	 * @return the evicted findings
+	 */
+	private List<IItem> enforceBudget() {
+		final int iMaxItems = (budget.getMaxItems() > 0) ? budget.getMaxItems() + iAllowance : 0;
+		final ItemBudget effective = new ItemBudget(iMaxItems, budget.getMaxBytes());
+		if (!effective.isExceeded(items.size(), lEstimatedBytes)) {
+			return Collections.emptyList();
+		}
+		final List<IItem> sorted = new ArrayList<IItem>(items.values());
+		Collections.sort(sorted, ItemBudget.EVICTION_ORDER);
+		final List<IItem> evicted = new ArrayList<IItem>();
+		for (int i = 0; i < sorted.size() && effective.isExceeded(items.size(), lEstimatedBytes); i++) {
+			unindexItem(sorted.get(i));
+			evicted.add(sorted.get(i));
+		}
+		hidden.addAll(evicted);
+		CinderLog.logInfo("IM:budget exceeded, hid " + evicted.size() + " findings");
+		return evicted;
+	}
+
+	/**
+	 * Sets the status of an item, keeping the status index up to date.
+	 * @param iiItem
+	 * @param status
+	 */
+	public void setStatus(final IItem iiItem, final ItemStatus status) {
+		setStatus(Collections.singletonList(iiItem), status);
+	}
+
+	/**
+	 * Sets the status of many items at once, e.g. a selection or the
+	 * result of select(). The status index is updated for all of them
+	 * before the listeners get a single event.
+	 * @param iiItems
+	 * @param status
+	 * @return the items whose status really changed
+	 */
+	public List<IItem> setStatus(final Collection<IItem> iiItems, final ItemStatus status) {
+		final List<IItem> changed = new ArrayList<IItem>(iiItems.size());
+		for (IItem iiItem : iiItems) {
+			if (iiItem.getStatus() == status) {
+				continue;
+			}
+			final ItemKey kFingerprint = iiItem.getKey();
+			if (items.containsKey(kFingerprint)) {
+				unindex(byStatus, iiItem.getStatus(), kFingerprint);
+				index(byStatus, status, kFingerprint);
+			}
+			iiItem.setStatus(status);
+			changed.add(iiItem);
+		}
+		if (!changed.isEmpty()) {
+			fireItemsChanged(new ItemManagerEvent(this, IItem.NONE, IItem.NONE,
+					changed.toArray(new IItem[changed.size()])));
+		}
+		return changed;
+	}
+
+	/**
+	 * Replaces the partition of a source with a fresh snapshot of its report.
+	 * Partitions are independent, so sources can be ingested in any order.
+	 * Findings that are already known by fingerprint keep their object
+	 * and status and only take over the new position; only findings that
+	 * really appeared or disappeared are reported to the listeners.
+	 * @param sReport the source id, or the file name or URL of the report
+	 * @param snapshot the items parsed from the report
+	 * @return the changes against the previous snapshot; known findings
+	 *         that moved are reported as changed, and hidden findings
+	 *         that left the report as removed
+	 */
+	public ItemManagerEvent replace(final String sReport, final Collection<IItem> snapshot) {
+		final Set<ItemKey> previous = byPartition.get(sReport);
+		Set<ItemKey> pending = provisional.remove(sReport);
+		if (pending == null) {
+			pending = Collections.emptySet();
+		}
+		final Set<ItemKey> current = new HashSet<ItemKey>();
+		final List<IItem> added = new ArrayList<IItem>();
+		final List<IItem> removed = new ArrayList<IItem>();
+		final List<IItem> moved = new ArrayList<IItem>();
+		final List<ItemKey> hiddenGone = new ArrayList<ItemKey>();
+
+		for (IItem item : snapshot) {
+			final ItemKey kFingerprint = item.getKey();
+			if (!current.add(kFingerprint)) {
+				continue;
+			}
+			final IItem existing = items.get(kFingerprint);
+			if (pending.contains(kFingerprint)) {
+				// shown from a chunk already, new to the history though
+				added.add((existing == null) ? item : existing);
+			} else if (hidden.contains(kFingerprint)) {
+				continue;
+			} else if (existing == null) {
+				addItem(item);
+				added.add(item);
+			} else if (existing != item && existing instanceof AbstractCinderItem) {
+				if (existing.getLine() != item.getLine() || existing.getOffset() != item.getOffset()) {
+					moved.add(existing);
+				}
+				unindexTokens(existing, kFingerprint);
+				lEstimatedBytes -= ItemBudget.estimateSize(existing);
+				((AbstractCinderItem) existing).updateFrom(item);
+				lEstimatedBytes += ItemBudget.estimateSize(existing);
+				indexTokens(existing, kFingerprint);
+			}
+		}
+		if (previous != null) {
+			for (ItemKey kFingerprint : new ArrayList<ItemKey>(previous)) {
+				if (!current.contains(kFingerprint) && !isInOtherReport(sReport, kFingerprint)) {
+					final IItem old = items.get(kFingerprint);
+					if (old != null) {
+						remove(old);
+						removed.add(old);
+					} else if (hidden.contains(kFingerprint)) {
+						hiddenGone.add(kFingerprint);
+					}
+				}
+			}
+		}
+		// chunked findings that did not make it into the final snapshot
+		final List<IItem> gone = new ArrayList<IItem>(removed);
+		for (ItemKey kFingerprint : pending) {
+			if (!current.contains(kFingerprint)) {
+				gone.addAll(dropProvisional(kFingerprint));
+			}
+		}
+		byPartition.put(sReport, current);
+		// not shown, but the history still has to see them disappear;
+		// taken before the budget could page them back in
+		removed.addAll(hidden.takeAll(hiddenGone));
+		gone.addAll(enforceBudget());
+
+		final List<IItem> fresh = new ArrayList<IItem>(added.size());
+		for (IItem item : added) {
+			if (!pending.contains(item.getKey())) {
+				fresh.add(item);
+			}
+		}
+		fireVisibleChanges(fresh, gone);
+		return new ItemManagerEvent(this,
+				added.toArray(new IItem[added.size()]),
+				removed.toArray(new IItem[removed.size()]),
+				moved.toArray(new IItem[moved.size()]));
+	}
+
+	/**
+	 * Shows a chunk of a report that is still being parsed. The findings
+	 * are provisional until the report is complete and passed to
+	 * {@link #replace(String, Collection)}, or dropped by
+	 * {@link #discardProvisional(String)} if parsing fails. The budget is
+	 * enforced once the report is complete: the reader holds on to the
+	 * chunked findings until then anyway, and evicting on every chunk
+	 * would sort all findings again and again.
+	 * @param sReport the source id, or the file name or URL of the report
+	 * @param chunk the next findings of the report
+	 */
+	public void addProvisional(final String sReport, final Collection<IItem> chunk) {
+		Set<ItemKey> pending = provisional.get(sReport);
+		if (pending == null) {
+			pending = new HashSet<ItemKey>();
+			provisional.put(sReport, pending);
+		}
+		final List<IItem> added = new ArrayList<IItem>(chunk.size());
+		for (IItem item : chunk) {
+			final ItemKey kFingerprint = item.getKey();
+			if (addItem(item)) {
+				pending.add(kFingerprint);
+				added.add(item);
+			}
+		}
+		fireVisibleChanges(added, Collections.<IItem>emptyList());
+	}
+
+	/**
+	 * Drops the provisional findings of a report whose parsing failed.
+	 * @param sReport the source id, or the file name or URL of the report
+	 */
+	public void discardProvisional(final String sReport) {
+		final Set<ItemKey> pending = provisional.remove(sReport);
+		if (pending == null) {
+			return;
+		}
+		final List<IItem> gone = new ArrayList<IItem>();
+		for (ItemKey kFingerprint : pending) {
+			gone.addAll(dropProvisional(kFingerprint));
+		}
+		fireVisibleChanges(Collections.<IItem>emptyList(), gone);
+	}
+
+	private List<IItem> dropProvisional(final ItemKey kFingerprint) {
+		hidden.remove(kFingerprint);
+		final IItem item = items.get(kFingerprint);
+		if (item == null || isInOtherReport(null, kFingerprint)) {
+			return Collections.emptyList();
+		}
+		unindexItem(item);
+		return Collections.singletonList(item);
+	}
+
+	/**
+	 * Tells the viewers what changed, leaving out findings that were
+	 * evicted before they were ever shown.
+	 * @param added findings not shown before
+	 * @param gone findings to remove from the viewers
+	 */
+	private void fireVisibleChanges(final Collection<IItem> added, final Collection<IItem> gone) {
+		final List<IItem> shown = new ArrayList<IItem>(added.size());
+		for (IItem item : added) {
+			if (items.containsKey(item.getKey())) {
+				shown.add(item);
+			}
+		}
+		final Set<IItem> hide = new LinkedHashSet<IItem>(gone);
+		hide.removeAll(added);
+		if (!shown.isEmpty() || !hide.isEmpty()) {
+			fireItemsChanged(new ItemManagerEvent(this,
+					shown.toArray(new IItem[shown.size()]),
+					hide.toArray(new IItem[hide.size()])));
+		}
+	}
+
+	private boolean isInOtherReport(final String sReport, final ItemKey kFingerprint) {
+		for (Map.Entry<String, Set<ItemKey>> entry : byPartition.entrySet()) {
+			if (!entry.getKey().equals(sReport) && entry.getValue().contains(kFingerprint)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// /////////////////////////////////////////////////////////////////////////
+	//
+	// Indexes
+	//
+	// /////////////////////////////////////////////////////////////////////////
+
+	private static <K> void index(final Map<K, Set<ItemKey>> index, final K key, final ItemKey kFingerprint) {
+		Set<ItemKey> set = index.get(key);
+		if (set == null) {
+			set = new LinkedHashSet<ItemKey>();
+			index.put(key, set);
+		}
+		set.add(kFingerprint);
+	}
+
+	private static <K> void unindex(final Map<K, Set<ItemKey>> index, final K key, final ItemKey kFingerprint) {
+		final Set<ItemKey> set = index.get(key);
+		if (set != null) {
+			set.remove(kFingerprint);
+			if (set.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+
+	private static <K> Set<ItemKey> lookup(final Map<K, Set<ItemKey>> index, final K key) {
+		final Set<ItemKey> set = index.get(key);
+		if (set == null) {
+			return Collections.emptySet();
+		}
+		return set;
+	}
+
+	private static Collection<Set<ItemKey>> prefixRange(final TreeMap<String, Set<ItemKey>> index,
+			final String sPrefix) {
+		final SortedMap<String, Set<ItemKey>> range = index.subMap(sPrefix, sPrefix + Character.MAX_VALUE);
+		return range.values();
+	}
+
+	private static Set<ItemKey> union(final Collection<Set<ItemKey>> sets) {
+		if (sets.size() == 1) {
+			return sets.iterator().next();
+		}
+		final Set<ItemKey> ret = new HashSet<ItemKey>();
+		for (Set<ItemKey> set : sets) {
+			ret.addAll(set);
+		}
+		return ret;
+	}
+
+	private void indexTokens(final IItem item, final ItemKey kFingerprint) {
+		for (String sToken : tokenize(item.getName(), item.getMessage())) {
+			index(byToken, sToken, kFingerprint);
+		}
+	}
+
+	private void unindexTokens(final IItem item, final ItemKey kFingerprint) {
+		for (String sToken : tokenize(item.getName(), item.getMessage())) {
+			unindex(byToken, sToken, kFingerprint);
+		}
+	}
+
+	/**
+	 * Splits texts into distinct lower case words of letters and digits.
+	 * @param texts
+	 * @return the tokens
+	 */
+	static Set<String> tokenize(final String... texts) {
+		final Set<String> tokens = new HashSet<String>();
+		for (String sText : texts) {
+			if (sText == null) {
+				continue;
+			}
+			final String sLower = sText.toLowerCase(Locale.ENGLISH);
+			int iStart = -1;
+			for (int i = 0; i <= sLower.length(); i++) {
+				final boolean bWord = i < sLower.length() && Character.isLetterOrDigit(sLower.charAt(i));
+				if (bWord && iStart < 0) {
+					iStart = i;
+				} else if (!bWord && iStart >= 0) {
+					tokens.add(sLower.substring(iStart, i));
+					iStart = -1;
+				}
+			}
+		}
+		return tokens;
 	}
 
 	// /////////////////////////////////////////////////////////////////////////
@@ -65,10 +666,9 @@ public final class ItemManager {
 		listeners.remove(listener);
 	}
 
-	/*
-	 * private void fireItemsChanged(IItem[] itemsAdded, IItem[] itemsRemoved) {
-	 * ItemManagerEvent event = new ItemManagerEvent(this, itemsAdded,
-	 * itemsRemoved); for (Iterator<ItemManagerListener> iter =
-	 * listeners.iterator(); iter.hasNext();) iter.next().itemsChanged(event); }
-	 */
+	private void fireItemsChanged(final ItemManagerEvent event) {
+		for (ItemManagerListener listener : new ArrayList<ItemManagerListener>(listeners)) {
+			listener.itemsChanged(event);
+		}
+	}
 }
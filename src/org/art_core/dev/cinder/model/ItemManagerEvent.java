@@ -7,12 +7,19 @@ public class ItemManagerEvent extends EventObject {
 
 	private final IItem[] added;
 	private final IItem[] removed;
+	private final IItem[] changed;
 
 	public ItemManagerEvent(final ItemManager source, final IItem[] itemsAdded,
 			final IItem[] itemsRemoved) {
+		this(source, itemsAdded, itemsRemoved, IItem.NONE);
+	}
+
+	public ItemManagerEvent(final ItemManager source, final IItem[] itemsAdded,
+			final IItem[] itemsRemoved, final IItem[] itemsChanged) {
 		super(source);
 		added = itemsAdded.clone();
 		removed = itemsRemoved.clone();
+		changed = itemsChanged.clone();
 	}
 
 	public IItem[] getItemsAdded() {
@@ -22,4 +29,12 @@ public class ItemManagerEvent extends EventObject {
 	public IItem[] getItemsRemoved() {
 		return removed.clone();
 	}
+
+	/**
+	 * Returns the items still managed whose status or position changed.
+	 * @return
+	 */
+	public IItem[] getItemsChanged() {
+		return changed.clone();
+	}
 }
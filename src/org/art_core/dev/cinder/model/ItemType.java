@@ -1,5 +1,8 @@
 package org.art_core.dev.cinder.model;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.ui.ISharedImages;
 import org.eclipse.ui.PlatformUI;
@@ -12,6 +15,8 @@ public abstract class ItemType implements Comparable<ItemType> {
 	private final String sID;
 	private final String printName;
 	private final int ordinal;
+	private Image image;
+	private boolean bImageLoaded;
 
 	public ItemType(final String sid, final String name, final int position) {
 		this.sID = sid;
@@ -31,7 +36,20 @@ public abstract class ItemType implements Comparable<ItemType> {
 		return ordinal;
 	}
 
-	public abstract Image getImage();
+	/**
+	 * Returns the icon of the type. It is looked up in the workbench once
+	 * and then cached, see cacheImages().
+	 * @return the image or <code>null</code>
+	 */
+	public final Image getImage() {
+		if (!bImageLoaded) {
+			image = loadImage();
+			bImageLoaded = true;
+		}
+		return image;
+	}
+
+	protected abstract Image loadImage();
 
 	public abstract IItem newItem(Object obj);
 
@@ -42,7 +60,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 	}
 
 	public static final ItemType UNKNOWN = new ItemType("Unknown", "Unknown", 0) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return null;
 		}
 
@@ -57,7 +75,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 
 	public static final ItemType WORKBENCH_FILE = new ItemType("WBFile",
 			"Workbench File", 1) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return PLATFORM_IMAGES
 					.getImage(org.eclipse.ui.ISharedImages.IMG_OBJ_FILE);
 		}
@@ -76,7 +94,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 
 	public static final ItemType WORKBENCH_FOLDER = new ItemType("WBFolder",
 			"Workbench Folder", 2) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return PLATFORM_IMAGES
 					.getImage(org.eclipse.ui.ISharedImages.IMG_OBJ_FOLDER);
 		}
@@ -92,7 +110,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 
 	public static final ItemType WORKBENCH_PROJECT = new ItemType("WBProj",
 			"WorkbenchProject", 3) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return PLATFORM_IMAGES.getImage(IDE.SharedImages.IMG_OBJ_PROJECT);
 		}
 
@@ -107,7 +125,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 
 	public static final ItemType JAVA_PROJECT = new ItemType("JProj",
 			"Java Project", 4) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return PLATFORM_IMAGES.getImage(IDE.SharedImages.IMG_OBJ_PROJECT);
 		}
 
@@ -122,7 +140,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 
 	public static final ItemType JAVA_PACKAGE_ROOT = new ItemType("JPkgRoot",
 			"Java Package Root", 5) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return PLATFORM_IMAGES
 					.getImage(org.eclipse.ui.ISharedImages.IMG_OBJ_FOLDER);
 		}
@@ -138,7 +156,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 
 	public static final ItemType JAVA_PACKAGE = new ItemType("JPkg",
 			"Java Package", 6) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return org.eclipse.jdt.ui.JavaUI.getSharedImages().getImage(
 					org.eclipse.jdt.ui.ISharedImages.IMG_OBJS_PACKAGE);
 		}
@@ -154,7 +172,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 
 	public static final ItemType JAVA_CLASS_FILE = new ItemType("JClass",
 			"Java Class File", 7) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return org.eclipse.jdt.ui.JavaUI.getSharedImages().getImage(
 					org.eclipse.jdt.ui.ISharedImages.IMG_OBJS_CFILE);
 		}
@@ -170,7 +188,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 
 	public static final ItemType JAVA_COMP_UNIT = new ItemType("JCompUnit",
 			"Java Compilation Unit", 8) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return org.eclipse.jdt.ui.JavaUI.getSharedImages().getImage(
 					org.eclipse.jdt.ui.ISharedImages.IMG_OBJS_CUNIT);
 		}
@@ -186,7 +204,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 
 	public static final ItemType JAVA_INTERFACE = new ItemType("JInterface",
 			"Java Interface", 9) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return org.eclipse.jdt.ui.JavaUI.getSharedImages().getImage(
 					org.eclipse.jdt.ui.ISharedImages.IMG_OBJS_INTERFACE);
 		}
@@ -202,7 +220,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 
 	public static final ItemType JAVA_CLASS = new ItemType("JClass",
 			"Java Class", 10) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return org.eclipse.jdt.ui.JavaUI.getSharedImages().getImage(
 					org.eclipse.jdt.ui.ISharedImages.IMG_OBJS_CLASS);
 		}
@@ -218,7 +236,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 	
 	public static final ItemType TASK_INFO = new ItemType("TASK_INFO",
 			"TASK_INFO", 11) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return PLATFORM_IMAGES.getImage(
 					org.eclipse.ui.ISharedImages.IMG_OBJS_INFO_TSK);
 		}
@@ -234,7 +252,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 	
 	public static final ItemType TASK_WARN = new ItemType("TASK_WARN",
 			"TASK_WARN", 12) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return PLATFORM_IMAGES.getImage(
 					org.eclipse.ui.ISharedImages.IMG_OBJS_WARN_TSK);
 		}
@@ -250,7 +268,7 @@ public abstract class ItemType implements Comparable<ItemType> {
 	
 	public static final ItemType TASK_ERROR = new ItemType("TASK_ERROR",
 			"TASK_ERROR", 13) {
-		public Image getImage() {
+		protected Image loadImage() {
 			return PLATFORM_IMAGES.getImage(
 					org.eclipse.ui.ISharedImages.IMG_OBJS_ERROR_TSK);
 		}
@@ -269,7 +287,60 @@ public abstract class ItemType implements Comparable<ItemType> {
 			JAVA_PACKAGE_ROOT, JAVA_PACKAGE, JAVA_CLASS_FILE, JAVA_COMP_UNIT,
 			JAVA_INTERFACE, JAVA_CLASS, TASK_INFO, TASK_WARN, TASK_ERROR, };
 
+	private static final Map<String, ItemType> BY_ID = new HashMap<String, ItemType>();
+	private static final Map<String, ItemType> BY_SEVERITY = new HashMap<String, ItemType>();
+
+	static {
+		for (ItemType type : TYPES) {
+			// JAVA_CLASS_FILE and JAVA_CLASS share the id "JClass"; the
+			// first type in position order wins, as in a linear search
+			if (!BY_ID.containsKey(type.getId())) {
+				BY_ID.put(type.getId(), type);
+			}
+		}
+		BY_SEVERITY.put("info", TASK_INFO);
+		BY_SEVERITY.put("warning", TASK_WARN);
+		BY_SEVERITY.put("error", TASK_ERROR);
+	}
+
 	public static ItemType[] getTypes() {
 		return TYPES.clone();
 	}
+
+	/**
+	 * Returns the type with an id.
+	 * @param sId
+	 * @return the type or <code>null</code>
+	 */
+	public static ItemType getById(final String sId) {
+		return BY_ID.get(sId);
+	}
+
+	/**
+	 * Returns the type of a report severity like "warning".
+	 * @param sSeverity
+	 * @return the type or <code>null</code> if unknown
+	 */
+	public static ItemType getBySeverity(final String sSeverity) {
+		return BY_SEVERITY.get(sSeverity);
+	}
+
+	/**
+	 * Returns the type at a position, the inverse of getPostion().
+	 * @param iPosition
+	 * @return the type, UNKNOWN if out of range
+	 */
+	public static ItemType getByPosition(final int iPosition) {
+		return (iPosition >= 0 && iPosition < TYPES.length) ? TYPES[iPosition] : UNKNOWN;
+	}
+
+	/**
+	 * Looks up the images of all types, so that painting rows never
+	 * has to ask the workbench. Called when a view is created.
+	 */
+	public static void cacheImages() {
+		for (ItemType type : TYPES) {
+			type.getImage();
+		}
+	}
 }
@@ -57,30 +57,4 @@ public class PropertiesItem extends AbstractCinderItem implements IItem {
 	public void setDetail(String sKey, String sVal) {
 		this.details.put(sKey, sVal);
 	}
-
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
-			return false;
-		PropertiesItem other = (PropertiesItem) obj;
-		if (line != other.line)
-			return false;
-		if (location == null) {
-			if (other.location != null)
-				return false;
-		} else if (!location.equals(other.location))
-			return false;
-		if (name == null) {
-			if (other.name != null)
-				return false;
-		} else if (!name.equals(other.name))
-			return false;
-		if (offset != other.offset)
-			return false;
-		return true;
-	}
 }
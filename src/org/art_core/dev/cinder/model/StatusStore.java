@@ -0,0 +1,175 @@
+package org.art_core.dev.cinder.model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.art_core.dev.cinder.CinderLog;
+import org.art_core.dev.cinder.CinderPlugin;
+
+/**
+ * Remembers the status the user gave to findings, keyed by fingerprint,
+ * so it survives re-ingestion and restarts. Changes are appended to a
+ * journal in the plug-in state location, which is compacted on load.
+ * @author Florian Anderiasch
+ *
+ */
+public final class StatusStore {
+	// Singleton
+	private static StatusStore store = new StatusStore();
+	private static final String JOURNAL = "status.journal";
+	private static final char SEP = '=';
+
+	private Map<String, ItemStatus> statuses;
+	private int iJournalLines;
+
+	private StatusStore() {
+	}
+
+	/**
+	 * Return singleton instance.
+	 * @return
+	 */
+	public static StatusStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Returns the stored status of a finding.
+	 * @param sFingerprint
+	 * @return the status or <code>null</code> if the finding is unknown or NEW
+	 */
+	public synchronized ItemStatus get(final String sFingerprint) {
+		load();
+		return statuses.get(sFingerprint);
+	}
+
+	/**
+	 * Stores the status of a finding.
+	 * @param sFingerprint
+	 * @param status
+	 */
+	public synchronized void put(final String sFingerprint, final ItemStatus status) {
+		final Map<String, ItemStatus> change = new HashMap<String, ItemStatus>();
+		change.put(sFingerprint, status);
+		putAll(change);
+	}
+
+	/**
+	 * Stores many statuses with a single journal write.
+	 * @param changes status per fingerprint
+	 */
+	public synchronized void putAll(final Map<String, ItemStatus> changes) {
+		load();
+		final StringBuilder str = new StringBuilder(changes.size() * 28);
+		for (Map.Entry<String, ItemStatus> entry : changes.entrySet()) {
+			apply(entry.getKey(), entry.getValue());
+			str.append(entry.getKey()).append(SEP).append(entry.getValue().name()).append('\n');
+		}
+		write(str.toString(), true);
+		iJournalLines += changes.size();
+	}
+
+	private void apply(final String sFingerprint, final ItemStatus status) {
+		if (status == ItemStatus.NEW) {
+			statuses.remove(sFingerprint);
+		} else {
+			statuses.put(sFingerprint, status);
+		}
+	}
+
+	/**
+	 * Replays the journal once and compacts it if it has grown too much.
+	 */
+	private void load() {
+		if (statuses != null) {
+			return;
+		}
+		statuses = new HashMap<String, ItemStatus>();
+		iJournalLines = 0;
+		final File fJournal = getJournal();
+		if (fJournal == null || !fJournal.exists()) {
+			return;
+		}
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(fJournal), "UTF-8"));
+			String sLine;
+			while ((sLine = reader.readLine()) != null) {
+				final int iPos = sLine.indexOf(SEP);
+				if (iPos <= 0) {
+					continue;
+				}
+				try {
+					apply(sLine.substring(0, iPos), ItemStatus.valueOf(sLine.substring(iPos + 1)));
+					iJournalLines++;
+				} catch (IllegalArgumentException e) {
+					CinderLog.logDebug("SS:skipping " + sLine);
+				}
+			}
+		} catch (IOException e) {
+			CinderLog.logError(e);
+		} finally {
+			close(reader);
+		}
+		if (iJournalLines > 2 * statuses.size() + 1000) {
+			compact();
+		}
+	}
+
+	/**
+	 * Rewrites the journal with one line per finding.
+	 */
+	private void compact() {
+		final StringBuilder str = new StringBuilder(statuses.size() * 28);
+		for (Map.Entry<String, ItemStatus> entry : statuses.entrySet()) {
+			str.append(entry.getKey()).append(SEP).append(entry.getValue().name()).append('\n');
+		}
+		write(str.toString(), false);
+		iJournalLines = statuses.size();
+	}
+
+	private void write(final String sData, final boolean bAppend) {
+		final File fJournal = getJournal();
+		if (fJournal == null || sData.length() == 0) {
+			return;
+		}
+		Writer writer = null;
+		try {
+			writer = new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(fJournal, bAppend), "UTF-8"));
+			writer.write(sData);
+		} catch (IOException e) {
+			CinderLog.logError(e);
+		} finally {
+			close(writer);
+		}
+	}
+
+	private File getJournal() {
+		final CinderPlugin plugin = CinderPlugin.getDefault();
+		if (plugin == null) {
+			return null;
+		}
+		return plugin.getStateLocation().append(JOURNAL).toFile();
+	}
+
+	private static void close(final Closeable stream) {
+		if (stream != null) {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				CinderLog.logErrorInfo("SS:close", e);
+			}
+		}
+	}
+}
@@ -1,6 +1,9 @@
 package org.art_core.dev.cinder.prefs;
 
 import org.art_core.dev.cinder.CinderPlugin;
+import org.art_core.dev.cinder.controller.MainController;
+import org.art_core.dev.cinder.controller.PushListener;
+import org.art_core.dev.cinder.controller.SourceRegistry;
 import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer;
 import org.eclipse.jface.preference.IPreferenceStore;
 
@@ -17,23 +20,27 @@ public class CinderPrefInit extends AbstractPreferenceInitializer {
 	 */
 	public void initializeDefaultPreferences() {
 		IPreferenceStore store = CinderPlugin.getDefault().getPreferenceStore();
-		store.setDefault(CinderPrefPage.P_INTEGER + "_xml_url_1_time", "5");
-		store.setDefault(CinderPrefPage.P_BOOLEAN + "_xml_url_1_check", false);
+		for (int i = 1; i <= SourceRegistry.PAGE_SLOTS; i++) {
+			setSlotDefaults(store, SourceRegistry.URL_SLOT, i);
+			setSlotDefaults(store, SourceRegistry.FILE_SLOT, i);
+		}
 		
-		store.setDefault(CinderPrefPage.P_INTEGER + "_xml_url_2_time", "5");
-		store.setDefault(CinderPrefPage.P_BOOLEAN + "_xml_url_2_check", false);
-		
-		store.setDefault(CinderPrefPage.P_INTEGER + "_xml_url_3_time", "5");
-		store.setDefault(CinderPrefPage.P_BOOLEAN + "_xml_url_3_check", false);
-		
-		store.setDefault(CinderPrefPage.P_INTEGER + "_xml_file_1_time", "5");
-		store.setDefault(CinderPrefPage.P_BOOLEAN + "_xml_file_1_check", false);
-		
-		store.setDefault(CinderPrefPage.P_INTEGER + "_xml_file_2_time", "5");
-		store.setDefault(CinderPrefPage.P_BOOLEAN + "_xml_file_2_check", false);
-		
-		store.setDefault(CinderPrefPage.P_INTEGER + "_xml_file_3_time", "5");
-		store.setDefault(CinderPrefPage.P_BOOLEAN + "_xml_file_3_check", false);
+		store.setDefault(CinderPrefPage.P_CHOICE + "_marker_mode", MainController.MARKER_MODE_EAGER);
+		store.setDefault(CinderPrefPage.P_BOOLEAN + "_streaming", true);
+		store.setDefault(CinderPrefPage.P_STRING + "_suppressions", "");
+		store.setDefault(CinderPrefPage.P_STRING + "_path_mappings", "");
+		store.setDefault(CinderPrefPage.P_BOOLEAN + "_push", false);
+		store.setDefault(CinderPrefPage.P_INTEGER + "_push_port", PushListener.DEFAULT_PORT);
+		store.setDefault(CinderPrefPage.P_STRING + "_push_token", "");
+		store.setDefault(CinderPrefPage.P_INTEGER + "_max_items", 50000);
+		store.setDefault(CinderPrefPage.P_INTEGER + "_max_memory", 64);
 	}
 
+	private void setSlotDefaults(IPreferenceStore store, String sIdentifier, int iNumber) {
+		store.setDefault(SourceRegistry.getKey(CinderPrefPage.P_INTEGER, sIdentifier, iNumber) + "_time", SourceRegistry.DEFAULT_INTERVAL);
+		store.setDefault(SourceRegistry.getKey(CinderPrefPage.P_BOOLEAN, sIdentifier, iNumber) + "_check", false);
+		store.setDefault(SourceRegistry.getKey(CinderPrefPage.P_STRING, sIdentifier, iNumber) + "_parsers", "");
+		store.setDefault(SourceRegistry.getKey(CinderPrefPage.P_INTEGER, sIdentifier, iNumber) + "_timeout",
+				SourceRegistry.DEFAULT_TIMEOUT);
+	}
 }
@@ -6,6 +6,8 @@ import org.eclipse.jface.preference.*;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 import org.eclipse.ui.IWorkbench;
 import org.art_core.dev.cinder.CinderPlugin;
+import org.art_core.dev.cinder.controller.MainController;
+import org.art_core.dev.cinder.controller.SourceRegistry;
 
 /**
  * This class represents a preference page that is contributed to the
@@ -46,12 +48,42 @@ public class CinderPrefPage extends FieldEditorPreferencePage implements
 	 * editor knows how to save and restore itself.
 	 */
 	public void createFieldEditors() {
-		addImportSource(STRING_FIELD, "xml_url", 1);
-		addImportSource(STRING_FIELD, "xml_url", 2);
-		addImportSource(STRING_FIELD, "xml_url", 3);
-		addImportSource(FILE_FIELD, "xml_file", 1);
-		addImportSource(FILE_FIELD, "xml_file", 2);
-		addImportSource(FILE_FIELD, "xml_file", 3);
+		for (int i = 1; i <= SourceRegistry.PAGE_SLOTS; i++) {
+			addImportSource(STRING_FIELD, SourceRegistry.URL_SLOT, i);
+		}
+		for (int i = 1; i <= SourceRegistry.PAGE_SLOTS; i++) {
+			addImportSource(FILE_FIELD, SourceRegistry.FILE_SLOT, i);
+		}
+		
+		addField(new RadioGroupFieldEditor(CinderPrefPage.P_CHOICE + "_marker_mode",
+				cRes.getString("MARKER_MODE"), 1, new String[][] {
+					{ cRes.getString("MARKER_MODE_EAGER"), MainController.MARKER_MODE_EAGER },
+					{ cRes.getString("MARKER_MODE_LAZY"), MainController.MARKER_MODE_LAZY },
+					{ cRes.getString("MARKER_MODE_ANNOTATIONS"), MainController.MARKER_MODE_ANNOTATIONS },
+				}, getFieldEditorParent()));
+		
+		addField(new BooleanFieldEditor(CinderPrefPage.P_BOOLEAN + "_streaming", 
+				cRes.getString("STREAMING"), getFieldEditorParent()));
+		addField(new StringFieldEditor(CinderPrefPage.P_STRING + "_path_mappings",
+				cRes.getString("PATH_MAPPINGS"), getFieldEditorParent()));
+		addField(new FileFieldEditor(CinderPrefPage.P_STRING + "_suppressions",
+				cRes.getString("SUPPRESSIONS_FILE"), getFieldEditorParent()));
+		addField(new BooleanFieldEditor(CinderPrefPage.P_BOOLEAN + "_push", 
+				cRes.getString("PUSH_ENABLED"), getFieldEditorParent()));
+		IntegerFieldEditor ifePort = new IntegerFieldEditor(CinderPrefPage.P_INTEGER + "_push_port",
+				cRes.getString("PUSH_PORT"), getFieldEditorParent());
+		ifePort.setValidRange(1, 65535);
+		addField(ifePort);
+		addField(new StringFieldEditor(CinderPrefPage.P_STRING + "_push_token",
+				cRes.getString("PUSH_TOKEN"), getFieldEditorParent()));
+		IntegerFieldEditor ifeItems = new IntegerFieldEditor(CinderPrefPage.P_INTEGER + "_max_items",
+				cRes.getString("MAX_ITEMS"), getFieldEditorParent());
+		ifeItems.setValidRange(0, Integer.MAX_VALUE);
+		addField(ifeItems);
+		IntegerFieldEditor ifeMemory = new IntegerFieldEditor(CinderPrefPage.P_INTEGER + "_max_memory",
+				cRes.getString("MAX_MEMORY"), getFieldEditorParent());
+		ifeMemory.setValidRange(0, 4096);
+		addField(ifeMemory);
 		
 		addField(new BooleanFieldEditor(CinderPrefPage.P_BOOLEAN + "_show_debug", 
 				cRes.getString("SHOW_DEBUG"), getFieldEditorParent()));
@@ -76,6 +108,13 @@ public class CinderPrefPage extends FieldEditorPreferencePage implements
 		ifeUrl.setTextLimit(3);
 		ifeUrl.setValidRange(1, 999);
 		addField(ifeUrl);
+		IntegerFieldEditor ifeTimeout = new IntegerFieldEditor(sNameInt + "_timeout", 
+				cRes.getString("TIMEOUT_IN_SECONDS"), getFieldEditorParent());
+		ifeTimeout.setTextLimit(4);
+		ifeTimeout.setValidRange(0, 9999);
+		addField(ifeTimeout);
+		addField(new StringFieldEditor(sNameString + "_parsers",
+				cRes.getString("PARSERS"), getFieldEditorParent()));
 	}
 	
 	/*
@@ -1,5 +1,9 @@
 package org.art_core.dev.cinder.views;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.art_core.dev.cinder.CinderLog;
 import org.art_core.dev.cinder.model.ItemManager;
 import org.art_core.dev.cinder.model.ItemManagerEvent;
@@ -8,6 +12,7 @@ import org.eclipse.jface.viewers.IStructuredContentProvider;
 import org.eclipse.jface.viewers.TableViewer;
 //import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerFilter;
 
 /*
  * The content provider class is responsible for
@@ -21,6 +26,10 @@ import org.eclipse.jface.viewers.Viewer;
 
 public class JFContentProvider implements IStructuredContentProvider,
 		ItemManagerListener {
+	/** what a change of an item can affect: its status or its position */
+	private static final String[] CHANGED_PROPERTIES = {
+		JFSorter.STATUS, JFSorter.LINE, JFSorter.OFFSET
+	};
 	private TableViewer viewer;
 	private ItemManager manager;
 	
@@ -66,16 +75,37 @@ public class JFContentProvider implements IStructuredContentProvider,
 		return x;
 	}
 
+	/**
+	 * Applies the changes row by row; added rows are sorted and filtered
+	 * by the viewer, so no full refresh is needed for a chunk of findings.
+	 * Changed rows are updated in place and re-sorted if the sorted column
+	 * changed, or removed if they no longer pass the filters.
+	 */
 	@Override
 	public void itemsChanged(final ItemManagerEvent event) {
 		viewer.getTable().setRedraw(false);
 		try {
 			viewer.remove(event.getItemsRemoved());
 			viewer.add(event.getItemsAdded());
+			updateChanged(event.getItemsChanged());
 		} finally {
-			viewer.refresh();
 			viewer.getTable().setRedraw(true);
-			viewer.refresh();
 		}
 	}
+
+	private void updateChanged(final Object[] changed) {
+		if (changed.length == 0) {
+			return;
+		}
+		Object[] shown = changed;
+		for (ViewerFilter filter : viewer.getFilters()) {
+			shown = filter.filter(viewer, viewer.getInput(), shown);
+		}
+		if (shown.length < changed.length) {
+			final Set<Object> hidden = new HashSet<Object>(Arrays.asList(changed));
+			hidden.removeAll(Arrays.asList(shown));
+			viewer.remove(hidden.toArray());
+		}
+		viewer.update(shown, CHANGED_PROPERTIES);
+	}
 }
\ No newline at end of file
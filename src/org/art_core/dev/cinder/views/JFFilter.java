@@ -0,0 +1,45 @@
+package org.art_core.dev.cinder.views;
+
+import java.util.Set;
+
+import org.art_core.dev.cinder.model.IItem;
+import org.art_core.dev.cinder.model.ItemFilter;
+import org.art_core.dev.cinder.model.ItemManager;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerFilter;
+
+/**
+ * A viewer filter backed by the indexes of the ItemManager. The matching
+ * items are selected once per refresh; each row is then only checked for
+ * membership instead of being string matched.
+ */
+public class JFFilter extends ViewerFilter {
+	private final ItemFilter criteria = new ItemFilter();
+	private Set<IItem> matches;
+
+	/**
+	 * Returns the criteria, to be changed by the filter bar.
+	 * @return
+	 */
+	public ItemFilter getCriteria() {
+		return criteria;
+	}
+
+	/**
+	 * Selects the matching items before the elements are filtered.
+	 */
+	@Override
+	public Object[] filter(final Viewer viewer, final Object parent, final Object[] elements) {
+		if (criteria.isEmpty()) {
+			matches = null;
+			return elements;
+		}
+		matches = ItemManager.getManager().select(criteria);
+		return super.filter(viewer, parent, elements);
+	}
+
+	@Override
+	public boolean select(final Viewer viewer, final Object parentElement, final Object element) {
+		return matches == null || !(element instanceof IItem) || matches.contains(element);
+	}
+}
@@ -0,0 +1,129 @@
+package org.art_core.dev.cinder.views;
+
+import java.util.ResourceBundle;
+
+import org.art_core.dev.cinder.model.ItemFilter;
+import org.art_core.dev.cinder.model.ItemSource;
+import org.art_core.dev.cinder.model.ItemStatus;
+import org.art_core.dev.cinder.model.ItemType;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.ModifyEvent;
+import org.eclipse.swt.events.ModifyListener;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Text;
+
+/**
+ * The filter bar above the findings: source, type, status,
+ * location prefix and free text.
+ */
+public class JFFilterBar {
+	private ResourceBundle cRes = ResourceBundle.getBundle("org.art_core.dev.cinder.CinderResource");
+
+	private final Composite bar;
+	private final ItemFilter criteria;
+	private StructuredViewer viewer;
+
+	private Combo cSource;
+	private Combo cType;
+	private Combo cStatus;
+	private Text tLocation;
+	private Text tSearch;
+
+	private final ItemType[] types = ItemType.getTypes();
+
+	public JFFilterBar(final Composite parent, final JFFilter filter) {
+		this.criteria = filter.getCriteria();
+		bar = new Composite(parent, SWT.NONE);
+		bar.setLayout(new GridLayout(10, false));
+		bar.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
+		createControls();
+	}
+
+	/**
+	 * Sets the viewer to refresh on changes.
+	 * @param sViewer
+	 */
+	public void setViewer(final StructuredViewer sViewer) {
+		this.viewer = sViewer;
+	}
+
+	public Composite getControl() {
+		return bar;
+	}
+
+	private void createControls() {
+		final String sAll = cRes.getString("FILTER_ALL");
+
+		cSource = createCombo("FILTER_SOURCE");
+		cSource.add(sAll);
+		for (ItemSource src : ItemSource.values()) {
+			cSource.add(src.toString());
+		}
+
+		cType = createCombo("FILTER_TYPE");
+		cType.add(sAll);
+		for (ItemType ty : types) {
+			cType.add(ty.getName());
+		}
+
+		cStatus = createCombo("FILTER_STATUS");
+		cStatus.add(sAll);
+		for (ItemStatus st : ItemStatus.values()) {
+			cStatus.add(st.toString());
+		}
+
+		tLocation = createText("FILTER_LOCATION");
+		tSearch = createText("FILTER_TEXT");
+
+		cSource.select(0);
+		cType.select(0);
+		cStatus.select(0);
+	}
+
+	private Combo createCombo(final String sLabel) {
+		new Label(bar, SWT.NONE).setText(cRes.getString(sLabel));
+		final Combo combo = new Combo(bar, SWT.READ_ONLY | SWT.DROP_DOWN);
+		combo.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(final SelectionEvent e) {
+				update();
+			}
+		});
+		return combo;
+	}
+
+	private Text createText(final String sLabel) {
+		new Label(bar, SWT.NONE).setText(cRes.getString(sLabel));
+		final Text text = new Text(bar, SWT.SINGLE | SWT.BORDER | SWT.SEARCH);
+		text.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		text.addModifyListener(new ModifyListener() {
+			public void modifyText(final ModifyEvent e) {
+				update();
+			}
+		});
+		return text;
+	}
+
+	/**
+	 * Copies the controls into the criteria and refreshes the viewer.
+	 */
+	private void update() {
+		final int iSource = cSource.getSelectionIndex();
+		criteria.setSource(iSource > 0 ? ItemSource.values()[iSource - 1] : null);
+		final int iType = cType.getSelectionIndex();
+		criteria.setType(iType > 0 ? types[iType - 1] : null);
+		final int iStatus = cStatus.getSelectionIndex();
+		criteria.setStatus(iStatus > 0 ? ItemStatus.values()[iStatus - 1] : null);
+		criteria.setLocationPrefix(tLocation.getText());
+		criteria.setText(tSearch.getText());
+		if (viewer != null) {
+			viewer.refresh();
+		}
+	}
+}
@@ -1,7 +1,7 @@
 package org.art_core.dev.cinder.views;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.text.MessageFormat;
 import java.util.List;
 import java.util.ResourceBundle;
 
@@ -11,15 +11,22 @@ import org.art_core.dev.cinder.controller.MainController;
 import org.art_core.dev.cinder.model.ItemManager;
 import org.art_core.dev.cinder.model.IItem;
 import org.art_core.dev.cinder.model.ItemStatus;
+import org.art_core.dev.cinder.model.ItemType;
 import org.art_core.dev.cinder.prefs.CinderPrefPage;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.custom.StackLayout;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Link;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeColumn;
 import org.eclipse.ui.IActionBars;
 import org.eclipse.ui.IWorkbenchActionConstants;
 import org.eclipse.ui.part.ViewPart;
@@ -29,7 +36,9 @@ import org.eclipse.jface.viewers.DoubleClickEvent;
 import org.eclipse.jface.viewers.IDoubleClickListener;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.StructuredViewer;
 import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IMenuListener;
 import org.eclipse.jface.action.IMenuManager;
@@ -55,9 +64,17 @@ public class JFInputView extends ViewPart {
 	
 	private static final boolean TOGGLE_OFF = false;
 	private static final boolean TOGGLE_ON = true;
+	// findings paged back per click on the hidden summary
+	private static final int HIDDEN_PAGE = 500;
 
 	private TableViewer viewer;
+	private TreeViewer tree;
+	private Composite cStack;
+	private StackLayout stackLayout;
+	private Link lHidden;
 	private JFSorter sorter;
+	private JFFilter filter;
+	private JFFilterBar filterBar;
 	private MainController cControl;
 	private IPreferenceStore ipsPref = CinderPlugin.getDefault().getPreferenceStore();
 
@@ -71,6 +88,7 @@ public class JFInputView extends ViewPart {
 	private Action aShowDummy;
 	private Action aClearAll;
 	private Action aClearSelected;
+	private Action aGroupByFile;
 	private Action[] aStatusActions;
 
 	public JFInputView() {
@@ -83,7 +101,22 @@ public class JFInputView extends ViewPart {
 	 * it.
 	 */
 	public void createPartControl(final Composite parent) {
-		createTableViewer(parent);
+		final GridLayout layout = new GridLayout(1, false);
+		layout.marginWidth = 0;
+		layout.marginHeight = 0;
+		parent.setLayout(layout);
+		ItemType.cacheImages();
+		filter = new JFFilter();
+		filterBar = new JFFilterBar(parent, filter);
+		cStack = new Composite(parent, SWT.NONE);
+		cStack.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+		stackLayout = new StackLayout();
+		cStack.setLayout(stackLayout);
+		createTableViewer(cStack);
+		createTreeViewer(cStack);
+		stackLayout.topControl = viewer.getControl();
+		filterBar.setViewer(viewer);
+		createHiddenSummary(parent);
 		cControl = new MainController(this);
 		createActions();
 		hookContextMenu();
@@ -107,9 +140,69 @@ public class JFInputView extends ViewPart {
 		viewer.setLabelProvider(new JFLabelProvider());
 		sorter = new JFSorter();
 		viewer.setSorter(sorter);
+		viewer.addFilter(filter);
 		viewer.setInput(ItemManager.getManager());
 	}
 
+	/**
+	 * Creates the TreeViewer of the group by file mode. It is virtual,
+	 * so the findings of a file are only fetched once it is expanded.
+	 * 
+	 * @param parent
+	 */
+	private void createTreeViewer(final Composite parent) {
+		tree = new TreeViewer(parent,
+				SWT.VIRTUAL | SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL | SWT.FULL_SELECTION);
+		tree.setUseHashlookup(true);
+		final Tree tTree = tree.getTree();
+		for (int i = 0; i < colSizes.length; i++) {
+			final TreeColumn col = new TreeColumn(tTree, SWT.LEFT);
+			col.setText(colNames[i]);
+			col.setWidth(colSizes[i]);
+		}
+		tTree.setHeaderVisible(true);
+		tTree.setLinesVisible(true);
+
+		tree.setContentProvider(new JFTreeContentProvider(filter.getCriteria()));
+		tree.setLabelProvider(new JFLabelProvider());
+		tree.setInput(ItemManager.getManager());
+	}
+
+	/**
+	 * Creates the summary of the findings hidden by the memory budget.
+	 * 
+	 * @param parent
+	 */
+	private void createHiddenSummary(final Composite parent) {
+		lHidden = new Link(parent, SWT.NONE);
+		final GridData gd = new GridData(SWT.FILL, SWT.BOTTOM, true, false);
+		gd.exclude = true;
+		lHidden.setLayoutData(gd);
+		lHidden.setVisible(false);
+		lHidden.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent e) {
+				cControl.showHidden(HIDDEN_PAGE);
+			}
+		});
+	}
+
+	/**
+	 * Shows or hides the summary of the findings hidden by the budget.
+	 */
+	private void updateHiddenSummary() {
+		final int iHidden = ItemManager.getManager().getHiddenCount();
+		final boolean bVisible = iHidden > 0;
+		if (bVisible) {
+			lHidden.setText(MessageFormat.format(cRes.getString("HIDDEN_SUMMARY"), iHidden) + " "
+					+ MessageFormat.format(cRes.getString("HIDDEN_SHOW_MORE"), Math.min(iHidden, HIDDEN_PAGE)));
+		}
+		if (lHidden.getVisible() != bVisible) {
+			lHidden.setVisible(bVisible);
+			((GridData) lHidden.getLayoutData()).exclude = !bVisible;
+			lHidden.getParent().layout();
+		}
+	}
+
 	/**
 	 * Create columns in the TableViewer.
 	 * @param viewer
@@ -150,10 +243,14 @@ public class JFInputView extends ViewPart {
 	@SuppressWarnings("unchecked")
 	private List<IItem> getSelectedItems() {
 		CinderLog.logDebug("getSel_start");
-		final ISelection selection = viewer.getSelection();
+		final ISelection selection = getSelection();
 		List<Object> foo = ((IStructuredSelection) selection).toList();
 		List<IItem> list = new ArrayList<IItem>();
-		list.addAll((Collection<? extends IItem>) foo);
+		for (Object o : foo) {
+			if (o instanceof IItem) {
+				list.add((IItem) o);
+			}
+		}
 		CinderLog.logDebug("getSel_end");
 		return list;
 	}
@@ -178,13 +275,9 @@ public class JFInputView extends ViewPart {
 	 */
 	private void executeMarkerToggleSelected(final boolean bEnable) {
 		if (bEnable == TOGGLE_ON) {
-			for (IItem pItem: this.getSelectedItems()) {
-				cControl.showMarkersSelected(pItem);
-			}
+			cControl.showMarkersSelected(this.getSelectedItems());
 		} else {
-			for (IItem pItem: this.getSelectedItems()) {
-				cControl.hideMarkersSelected(pItem);
-			}
+			cControl.hideMarkersSelected(this.getSelectedItems());
 		}
 	}
 
@@ -216,10 +309,23 @@ public class JFInputView extends ViewPart {
 	 * @param status
 	 */
 	private void executeSetStatus(ItemStatus status) {
-		for (IItem pItem: this.getSelectedItems()) {
-			cControl.setStatus(pItem, status);
+		cControl.setStatus(this.getSelectedItems(), status);
+		// the table follows the change event, the tree is rebuilt
+		if (getActiveViewer() != viewer) {
+			this.refresh();
 		}
-		this.getViewer().refresh();
+	}
+
+	/**
+	 * Switches between the flat table and the tree grouped by file.
+	 * @param bGroup
+	 */
+	private void executeGroupByFile(final boolean bGroup) {
+		final StructuredViewer active = bGroup ? tree : viewer;
+		stackLayout.topControl = active.getControl();
+		filterBar.setViewer(active);
+		active.refresh();
+		cStack.layout();
 	}
 
 	/**
@@ -234,7 +340,6 @@ public class JFInputView extends ViewPart {
 			try {
 				cControl.insertFromFile(sFile, MainController.FILE_LOCAL);
 				ipsPref.setValue(sPrefKey, sFile);
-				executeMarkerToggleAll(TOGGLE_ON);
 			} catch (Exception e) {
 				CinderLog.logError(e);
 			}
@@ -253,7 +358,6 @@ public class JFInputView extends ViewPart {
 			try {
 				cControl.insertFromFile(sFile, MainController.FILE_REMOTE);
 				ipsPref.setValue(sPrefKey, sFile);
-				executeMarkerToggleAll(TOGGLE_ON);
 			} catch (Exception e) {
 				CinderLog.logError(e);
 			}
@@ -425,6 +529,15 @@ public class JFInputView extends ViewPart {
 		aClearSelected.setToolTipText(cRes.getString("TEXT_CLEAR_SEL"));
 		aClearSelected.setImageDescriptor((ImageDescriptor) cRes.getObject("IMAGE_CLEAR_SEL"));
 		
+		// toggle the tree mode
+		aGroupByFile = new Action(cRes.getString("TEXT_GROUP_BY_FILE"), Action.AS_CHECK_BOX) {
+			public void run() {
+				executeGroupByFile(isChecked());
+			}
+		};
+		aGroupByFile.setToolTipText(cRes.getString("TEXT_GROUP_BY_FILE"));
+		aGroupByFile.setImageDescriptor((ImageDescriptor) cRes.getObject("IMAGE_GROUP_BY_FILE"));
+
 		// set status to XXX
 		int iLen = ItemStatus.values().length;
 		aStatusActions = new Action[iLen];
@@ -454,6 +567,8 @@ public class JFInputView extends ViewPart {
 		final Menu menu = menuMgr.createContextMenu(viewer.getControl());
 		viewer.getControl().setMenu(menu);
 		getSite().registerContextMenu(menuMgr, viewer);
+		final Menu treeMenu = menuMgr.createContextMenu(tree.getControl());
+		tree.getControl().setMenu(treeMenu);
 	}
 
 	/**
@@ -475,6 +590,7 @@ public class JFInputView extends ViewPart {
 		mmBar.add(aShowMarkersAll);
 		mmBar.add(aHideMarkersAll);
 		mmBar.add(aClearAll);
+		mmBar.add(aGroupByFile);
 
 		bars.updateActionBars();
 	}
@@ -504,22 +620,70 @@ public class JFInputView extends ViewPart {
 	public TableViewer getViewer() {
 		return viewer;
 	}
+
+	/**
+	 * Returns the viewer currently shown, the table or the tree.
+	 * @return
+	 */
+	public StructuredViewer getActiveViewer() {
+		return (stackLayout.topControl == tree.getControl()) ? tree : viewer;
+	}
+
+	/**
+	 * Returns the selection of the viewer currently shown.
+	 * @return
+	 */
+	public ISelection getSelection() {
+		return getActiveViewer().getSelection();
+	}
+
+	/**
+	 * Updates the view after a chunk of findings was added. The table
+	 * follows the item manager by itself; the lazy tree only needs its
+	 * top level recounted.
+	 */
+	public void chunkApplied() {
+		if (getActiveViewer() == tree) {
+			tree.refresh();
+		}
+		updateHiddenSummary();
+	}
+
+	/**
+	 * Refreshes the viewer currently shown.
+	 */
+	public void refresh() {
+		getActiveViewer().refresh();
+		updateHiddenSummary();
+	}
 	
 	/**
 	 * Adds actions to a double click
 	 */
 	private void hookDoubleClickAction() {
-		viewer.addDoubleClickListener(new IDoubleClickListener() {
+		final IDoubleClickListener listener = new IDoubleClickListener() {
 			public void doubleClick(final DoubleClickEvent event) {
 				aSelect.run();
 			}
-		});
+		};
+		viewer.addDoubleClickListener(listener);
+		tree.addDoubleClickListener(listener);
+	}
+
+	/**
+	 * Releases the controller's listeners.
+	 */
+	public void dispose() {
+		if (cControl != null) {
+			cControl.dispose();
+		}
+		super.dispose();
 	}
 
 	/**
 	 * Passing the focus request to the viewer's control.
 	 */
 	public void setFocus() {
-		viewer.getControl().setFocus();
+		getActiveViewer().getControl().setFocus();
 	}
 }
\ No newline at end of file
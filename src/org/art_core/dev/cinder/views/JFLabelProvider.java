@@ -5,7 +5,6 @@ import java.util.Date;
 
 import org.art_core.dev.cinder.CinderLog;
 import org.art_core.dev.cinder.model.IItem;
-import org.art_core.dev.cinder.model.PropertiesItem;
 import org.eclipse.jface.viewers.ITableLabelProvider;
 import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.swt.graphics.Image;
@@ -14,6 +13,10 @@ import org.eclipse.ui.PlatformUI;
 
 class JFLabelProvider extends LabelProvider implements ITableLabelProvider {
 	private static final String sPattern = "yyyy-MM-dd HH:mm:ss";
+	// the provider is only used on the UI thread
+	private final SimpleDateFormat sdf = new SimpleDateFormat(sPattern);
+	private final Image imElement = PlatformUI.getWorkbench().getSharedImages().getImage(
+			ISharedImages.IMG_OBJ_ELEMENT);
 	
 	/**
 	 * Returns the label image for the given column of the given element.
@@ -24,13 +27,15 @@ class JFLabelProvider extends LabelProvider implements ITableLabelProvider {
 	 */
 	@Override
 	public String getColumnText(Object obj, final int index) {
+		if (obj instanceof JFTreeNode) {
+			return ((JFTreeNode) obj).getColumnText(index);
+		}
 		String sResult;
-		IItem item = new PropertiesItem("foo");
-		try {
-			item = (IItem) obj;
-		} catch (Exception e) {
+		if (!(obj instanceof IItem)) {
 			CinderLog.logDebug("gCT:" + obj.getClass());
+			return "";
 		}
+		final IItem item = (IItem) obj;
 		switch (index) {
 		case 0: // type column
 			sResult = "";
@@ -56,7 +61,6 @@ class JFLabelProvider extends LabelProvider implements ITableLabelProvider {
 		case 7: // timestamp column
 			int ts = item.getTimestamp();
 			Date dTS = new Date (ts*1000L);
-			SimpleDateFormat sdf = new SimpleDateFormat(sPattern);
 			sResult = "";
 			try {
 				sResult = sdf.format(dTS);
@@ -88,7 +92,6 @@ class JFLabelProvider extends LabelProvider implements ITableLabelProvider {
 	}
 
 	public Image getImage(final Object obj) {
-		return PlatformUI.getWorkbench().getSharedImages().getImage(
-				ISharedImages.IMG_OBJ_ELEMENT);
+		return imElement;
 	}
 }
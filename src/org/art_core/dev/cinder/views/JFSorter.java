@@ -8,6 +8,13 @@ import org.eclipse.jface.viewers.ViewerSorter;
  * A custom sorter for a content provider.
  */
 public class JFSorter extends ViewerSorter {
+	public static final String LINE = "line";
+	public static final String OFFSET = "offset";
+	public static final String STATUS = "status";
+	/** the item properties, in the order of the columns */
+	private static final String[] PROPERTIES = {
+		"type", "name", "message", "location", LINE, OFFSET, STATUS, "timestamp"
+	};
 	private int propertyIndex;
 	private int direction;
 	//private static int ASC = 0;
@@ -34,6 +41,14 @@ public class JFSorter extends ViewerSorter {
 		}
 	}
 	
+	/**
+	 * Tells the viewer to re-sort an updated item if the property
+	 * belongs to the sorted column.
+	 */
+	public boolean isSorterProperty(Object element, String property) {
+		return propertyIndex < PROPERTIES.length && PROPERTIES[propertyIndex].equals(property);
+	}
+
 	/**
 	 * Compare to determine sort order.
 	 */
@@ -0,0 +1,115 @@
+package org.art_core.dev.cinder.views;
+
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.ResourceBundle;
+
+import org.art_core.dev.cinder.controller.Metrics;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.ui.part.ViewPart;
+
+/**
+ * Shows the ingestion metrics: latencies per source and stage, volumes,
+ * and the counters of the resource cache and the markers.
+ * @author Florian Anderiasch
+ *
+ */
+public class JFStatisticsView extends ViewPart {
+	private static final int REFRESH_INTERVAL = 2000;
+
+	private final int[] stageSizes = { 200, 80, 60, 70, 70, 70, 70 };
+	private final int[] volumeSizes = { 200, 100, 80, 80, 110 };
+
+	private ResourceBundle cRes = ResourceBundle.getBundle("org.art_core.dev.cinder.CinderResource");
+
+	private Label lCounters;
+	private Table tStages;
+	private Table tVolumes;
+
+	private final Runnable rRefresh = new Runnable() {
+		public void run() {
+			if (lCounters == null || lCounters.isDisposed()) {
+				return;
+			}
+			refresh();
+			lCounters.getDisplay().timerExec(REFRESH_INTERVAL, this);
+		}
+	};
+
+	public void createPartControl(final Composite parent) {
+		parent.setLayout(new GridLayout(1, false));
+		lCounters = new Label(parent, SWT.NONE);
+		lCounters.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
+		tStages = createTable(parent, cRes.getStringArray("STATISTICS_STAGE_COLUMNS"), stageSizes);
+		tVolumes = createTable(parent, cRes.getStringArray("STATISTICS_VOLUME_COLUMNS"), volumeSizes);
+
+		final Action aRefresh = new Action() {
+			public void run() {
+				refresh();
+			}
+		};
+		aRefresh.setText(cRes.getString("TEXT_REFRESH"));
+		aRefresh.setToolTipText(cRes.getString("TEXT_REFRESH"));
+		aRefresh.setImageDescriptor((ImageDescriptor) cRes.getObject("IMAGE_REFRESH"));
+
+		final Action aReset = new Action() {
+			public void run() {
+				Metrics.getMetrics().reset();
+				refresh();
+			}
+		};
+		aReset.setText(cRes.getString("TEXT_RESET_STATISTICS"));
+		aReset.setToolTipText(cRes.getString("TEXT_RESET_STATISTICS"));
+
+		getViewSite().getActionBars().getToolBarManager().add(aRefresh);
+		getViewSite().getActionBars().getMenuManager().add(aReset);
+
+		rRefresh.run();
+	}
+
+	private Table createTable(final Composite parent, final String[] cols, final int[] sizes) {
+		final Table table = new Table(parent, SWT.BORDER | SWT.FULL_SELECTION);
+		table.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+		for (int i = 0; i < cols.length; i++) {
+			final TableColumn col = new TableColumn(table, SWT.LEFT);
+			col.setText(cols[i]);
+			col.setWidth(sizes[i]);
+		}
+		table.setHeaderVisible(true);
+		table.setLinesVisible(true);
+		return table;
+	}
+
+	/**
+	 * Rereads the metrics.
+	 */
+	private void refresh() {
+		final Metrics metrics = Metrics.getMetrics();
+		lCounters.setText(MessageFormat.format(cRes.getString("STATISTICS_COUNTERS"),
+				Math.round(metrics.getResourceCacheHitRate() * 100), metrics.getMarkersCreated(),
+				metrics.getMarkersDeleted()));
+		fill(tStages, metrics.getStageRows());
+		fill(tVolumes, metrics.getVolumeRows());
+	}
+
+	private static void fill(final Table table, final List<String[]> rows) {
+		table.setRedraw(false);
+		table.setItemCount(rows.size());
+		for (int i = 0; i < rows.size(); i++) {
+			table.getItem(i).setText(rows.get(i));
+		}
+		table.setRedraw(true);
+	}
+
+	public void setFocus() {
+		tStages.setFocus();
+	}
+}
@@ -0,0 +1,160 @@
+package org.art_core.dev.cinder.views;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.art_core.dev.cinder.model.IItem;
+import org.art_core.dev.cinder.model.ItemFilter;
+import org.art_core.dev.cinder.model.ItemManager;
+import org.art_core.dev.cinder.model.ItemSource;
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+
+/*
+ * The lazy content provider of the tree mode. Findings are grouped by
+ * location and then by source. The top level only needs the location
+ * index; the findings of a node are collected when it is expanded.
+ */
+public class JFTreeContentProvider implements ILazyTreeContentProvider {
+	private TreeViewer viewer;
+	private ItemManager manager;
+	private final ItemFilter criteria;
+	private Set<IItem> matches;
+	private List<String> locations = new ArrayList<String>();
+
+	public JFTreeContentProvider(final ItemFilter criteria) {
+		this.manager = ItemManager.getManager();
+		this.criteria = criteria;
+	}
+
+	@Override
+	public void inputChanged(final Viewer vViewer, final Object oldInput,
+			final Object newInput) {
+		this.viewer = (TreeViewer) vViewer;
+		this.manager = (ItemManager) newInput;
+	}
+
+	@Override
+	public void dispose() {
+	}
+
+	@Override
+	public Object getParent(final Object element) {
+		if (element instanceof JFTreeNode) {
+			final JFTreeNode parent = ((JFTreeNode) element).getParent();
+			return (parent == null) ? manager : parent;
+		}
+		return null;
+	}
+
+	@Override
+	public void updateChildCount(final Object element, final int currentChildCount) {
+		int iCount = 0;
+		if (element instanceof ItemManager) {
+			refreshLocations();
+			iCount = locations.size();
+		} else if (element instanceof JFTreeNode) {
+			iCount = getChildren((JFTreeNode) element).size();
+		}
+		if (iCount != currentChildCount) {
+			viewer.setChildCount(element, iCount);
+		}
+	}
+
+	@Override
+	public void updateElement(final Object parent, final int index) {
+		Object child = null;
+		if (parent instanceof ItemManager) {
+			if (index < locations.size()) {
+				final String sLocation = locations.get(index);
+				child = new JFTreeNode(sLocation, getItems(sLocation).size());
+			}
+		} else if (parent instanceof JFTreeNode) {
+			final List<Object> children = getChildren((JFTreeNode) parent);
+			if (index < children.size()) {
+				child = children.get(index);
+			}
+		}
+		if (child == null) {
+			return;
+		}
+		viewer.replace(parent, index, child);
+		if (child instanceof JFTreeNode) {
+			// the count is known, the children are created on expansion
+			viewer.setHasChildren(child, ((JFTreeNode) child).getCount() > 0);
+		} else {
+			viewer.setChildCount(child, 0);
+		}
+	}
+
+	/**
+	 * Rereads the top level, restricted to the filter's matches.
+	 */
+	private void refreshLocations() {
+		if (criteria.isEmpty()) {
+			matches = null;
+			locations = new ArrayList<String>(manager.getLocations());
+			return;
+		}
+		matches = manager.select(criteria);
+		final List<String> list = new ArrayList<String>();
+		for (String sLocation : manager.getLocations()) {
+			if (!getItems(sLocation).isEmpty()) {
+				list.add(sLocation);
+			}
+		}
+		locations = list;
+	}
+
+	/**
+	 * Returns the items of a location that pass the filter.
+	 */
+	private Collection<IItem> getItems(final String sLocation) {
+		final Collection<IItem> items = manager.getItemsByLocation(sLocation);
+		if (matches == null) {
+			return items;
+		}
+		final List<IItem> list = new ArrayList<IItem>();
+		for (IItem item : items) {
+			if (matches.contains(item)) {
+				list.add(item);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Materializes the children of a node on first use.
+	 */
+	private List<Object> getChildren(final JFTreeNode node) {
+		List<Object> children = node.getChildren();
+		if (children != null) {
+			return children;
+		}
+		final Collection<IItem> items = getItems(node.getLocation());
+		if (node.getSource() != null) {
+			children = node.filter(items);
+		} else {
+			final Map<ItemSource, int[]> counts = new EnumMap<ItemSource, int[]>(ItemSource.class);
+			for (IItem item : items) {
+				int[] count = counts.get(item.getSource());
+				if (count == null) {
+					count = new int[1];
+					counts.put(item.getSource(), count);
+				}
+				count[0]++;
+			}
+			children = new ArrayList<Object>();
+			for (Map.Entry<ItemSource, int[]> entry : counts.entrySet()) {
+				children.add(new JFTreeNode(node, node.getLocation(), entry.getKey(), entry.getValue()[0]));
+			}
+		}
+		node.setChildren(children);
+		return children;
+	}
+}
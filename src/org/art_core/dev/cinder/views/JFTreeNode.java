@@ -0,0 +1,110 @@
+package org.art_core.dev.cinder.views;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.art_core.dev.cinder.model.IItem;
+import org.art_core.dev.cinder.model.ItemSource;
+
+/**
+ * A grouping node of the tree mode: either a location, or a source
+ * below a location. Children are only collected once the node expands.
+ */
+public class JFTreeNode {
+	private final JFTreeNode parent;
+	private final String location;
+	private final ItemSource source;
+	private final int count;
+	private List<Object> children;
+
+	public JFTreeNode(final String sLocation, final int iCount) {
+		this(null, sLocation, null, iCount);
+	}
+
+	public JFTreeNode(final JFTreeNode parent, final String sLocation,
+			final ItemSource src, final int iCount) {
+		this.parent = parent;
+		this.location = sLocation;
+		this.source = src;
+		this.count = iCount;
+	}
+
+	public JFTreeNode getParent() {
+		return parent;
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	/**
+	 * Returns the source of a group node.
+	 * @return the source or <code>null</code> for a location node
+	 */
+	public ItemSource getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the number of findings below this node.
+	 * @return
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	List<Object> getChildren() {
+		return children;
+	}
+
+	void setChildren(final List<Object> list) {
+		this.children = list;
+	}
+
+	/**
+	 * Returns the label of a column.
+	 * @param index
+	 * @return
+	 */
+	public String getColumnText(final int index) {
+		if (index != 1) {
+			return "";
+		}
+		final String sName = (source == null) ? location : source.toString();
+		return sName + " (" + count + ")";
+	}
+
+	/**
+	 * Collects the items of a group node.
+	 * @param items the items of the location
+	 * @return the items of this node's source
+	 */
+	List<Object> filter(final Iterable<IItem> items) {
+		final List<Object> list = new ArrayList<Object>();
+		for (IItem item : items) {
+			if (item.getSource() == source) {
+				list.add(item);
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = location.hashCode();
+		result = 31 * result + ((source == null) ? 0 : source.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof JFTreeNode)) {
+			return false;
+		}
+		final JFTreeNode other = (JFTreeNode) obj;
+		return location.equals(other.location) && source == other.source;
+	}
+}